@@ -0,0 +1,491 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Luiz Otávio
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.teamdiluvian.wakacraft.benchmark;
+
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * In-memory Redis stand-in speaking RESP on a loopback port, implementing only the commands the plugin sends.
+ *
+ * @author TeamDiluvian
+ * @since 18/10/2026
+ */
+public class InProcessRedis implements Closeable {
+
+    private static final Comparator<Map.Entry<String, Double>> SCORE_ORDER =
+        Map.Entry.<String, Double>comparingByValue().thenComparing(Map.Entry.comparingByKey());
+
+    private final Map<String, Object> store = new HashMap<>();
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections;
+
+    public InProcessRedis() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+
+        connections = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable);
+
+            thread.setName("Wakacraft-Redis-Connection");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        connections.execute(this::accept);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        connections.shutdownNow();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+
+                connections.execute(() -> serve(socket));
+            } catch (IOException exception) {
+                if (!serverSocket.isClosed()) {
+                    exception.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private void serve(@NotNull Socket socket) {
+        try (socket) {
+            InputStream input = new BufferedInputStream(socket.getInputStream());
+            OutputStream output = new BufferedOutputStream(socket.getOutputStream());
+
+            List<String> command;
+            while ((command = readCommand(input)) != null) {
+                Object reply;
+
+                synchronized (store) {
+                    try {
+                        reply = execute(command.get(0).toUpperCase(Locale.ROOT), command);
+                    } catch (ClassCastException exception) {
+                        reply = new ErrorReply("WRONGTYPE Operation against a key holding the wrong kind of value");
+                    } catch (RuntimeException exception) {
+                        reply = new ErrorReply("ERR " + exception.getMessage());
+                    }
+                }
+
+                writeReply(output, reply);
+
+                // Pipelined commands are answered together
+                if (input.available() == 0) {
+                    output.flush();
+                }
+            }
+        } catch (IOException ignored) {
+            // The client went away
+        }
+    }
+
+    private @Nullable Object execute(@NotNull String name, @NotNull List<String> command) {
+        String key = command.size() > 1 ? command.get(1) : null;
+
+        switch (name) {
+            case "PING":
+                return new StatusReply("PONG");
+            case "SELECT":
+            case "AUTH":
+            case "CLIENT":
+            case "QUIT":
+                return new StatusReply("OK");
+            case "DEL": {
+                long removed = 0;
+
+                for (String each : command.subList(1, command.size())) {
+                    if (store.remove(each) != null) {
+                        removed++;
+                    }
+                }
+
+                return removed;
+            }
+            case "EXISTS":
+                return command.subList(1, command.size()).stream().filter(store::containsKey).count();
+            case "EXPIRE":
+            case "PEXPIRE":
+                return store.containsKey(key) ? 1L : 0L;
+            case "RENAME": {
+                Object value = store.remove(key);
+                if (value == null) {
+                    return new ErrorReply("ERR no such key");
+                }
+
+                store.put(command.get(2), value);
+                return new StatusReply("OK");
+            }
+            case "PUBLISH":
+                return 0L;
+            case "HSET": {
+                Map<String, String> hash = getOrCreate(key, HashMap::new);
+                long added = 0;
+
+                for (int index = 2; index < command.size(); index += 2) {
+                    if (hash.put(command.get(index), command.get(index + 1)) == null) {
+                        added++;
+                    }
+                }
+
+                return added;
+            }
+            case "HGET":
+                return this.<Map<String, String>>get(key, Map.of()).get(command.get(2));
+            case "HMGET": {
+                Map<String, String> hash = get(key, Map.of());
+                List<String> values = new ArrayList<>();
+
+                for (String field : command.subList(2, command.size())) {
+                    values.add(hash.get(field));
+                }
+
+                return values;
+            }
+            case "HGETALL": {
+                List<String> values = new ArrayList<>();
+
+                this.<Map<String, String>>get(key, Map.of()).forEach((field, value) -> {
+                    values.add(field);
+                    values.add(value);
+                });
+
+                return values;
+            }
+            case "HDEL": {
+                Map<String, String> hash = get(key, new HashMap<>());
+
+                long removed = command.subList(2, command.size()).stream().filter(field -> hash.remove(field) != null).count();
+                removeIfEmpty(key, hash.isEmpty());
+
+                return removed;
+            }
+            case "SADD": {
+                Set<String> set = getOrCreate(key, HashSet::new);
+
+                return command.subList(2, command.size()).stream().filter(set::add).count();
+            }
+            case "SREM": {
+                Set<String> set = get(key, new HashSet<>());
+
+                long removed = command.subList(2, command.size()).stream().filter(set::remove).count();
+                removeIfEmpty(key, set.isEmpty());
+
+                return removed;
+            }
+            case "SISMEMBER":
+                return this.<Set<String>>get(key, Set.of()).contains(command.get(2)) ? 1L : 0L;
+            case "SMEMBERS":
+                return new ArrayList<>(this.<Set<String>>get(key, Set.of()));
+            case "SCARD":
+                return (long) this.<Set<String>>get(key, Set.of()).size();
+            case "ZADD": {
+                SortedSet sortedSet = getOrCreate(key, SortedSet::new);
+                long added = 0;
+
+                for (int index = 2; index < command.size(); index += 2) {
+                    if (sortedSet.add(command.get(index + 1), parseScore(command.get(index)))) {
+                        added++;
+                    }
+                }
+
+                return added;
+            }
+            case "ZREM": {
+                SortedSet sortedSet = get(key, new SortedSet());
+
+                long removed = command.subList(2, command.size()).stream().filter(sortedSet::remove).count();
+                removeIfEmpty(key, sortedSet.scores.isEmpty());
+
+                return removed;
+            }
+            case "ZSCORE": {
+                Double score = get(key, new SortedSet()).scores.get(command.get(2));
+
+                return score == null ? null : formatScore(score);
+            }
+            case "ZCARD":
+                return (long) get(key, new SortedSet()).scores.size();
+            case "ZREVRANK": {
+                SortedSet sortedSet = get(key, new SortedSet());
+                Double score = sortedSet.scores.get(command.get(2));
+
+                if (score == null) {
+                    return null;
+                }
+
+                return (long) sortedSet.ordered.tailSet(Map.entry(command.get(2), score), false).size();
+            }
+            case "ZREVRANGE": {
+                List<Map.Entry<String, Double>> entries = new ArrayList<>(get(key, new SortedSet()).ordered.descendingSet());
+                boolean withScores = command.size() > 4 && "WITHSCORES".equalsIgnoreCase(command.get(4));
+
+                int start = index(Integer.parseInt(command.get(2)), entries.size());
+                int stop = Math.min(index(Integer.parseInt(command.get(3)), entries.size()), entries.size() - 1);
+
+                List<String> values = new ArrayList<>();
+                for (int index = start; index <= stop; index++) {
+                    values.add(entries.get(index).getKey());
+
+                    if (withScores) {
+                        values.add(formatScore(entries.get(index).getValue()));
+                    }
+                }
+
+                return values;
+            }
+            case "ZRANGEBYSCORE": {
+                List<String> values = new ArrayList<>();
+
+                for (Map.Entry<String, Double> entry : get(key, new SortedSet()).inRange(command.get(2), command.get(3))) {
+                    values.add(entry.getKey());
+                }
+
+                return values;
+            }
+            case "ZREMRANGEBYSCORE": {
+                SortedSet sortedSet = get(key, new SortedSet());
+                long removed = 0;
+
+                for (Map.Entry<String, Double> entry : sortedSet.inRange(command.get(2), command.get(3))) {
+                    sortedSet.remove(entry.getKey());
+                    removed++;
+                }
+
+                removeIfEmpty(key, sortedSet.scores.isEmpty());
+                return removed;
+            }
+            default:
+                return new ErrorReply("ERR unknown command '" + name + "'");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(@NotNull String key, @NotNull T absent) {
+        Object value = store.get(key);
+
+        return value == null ? absent : (T) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T getOrCreate(@NotNull String key, @NotNull Supplier<T> factory) {
+        return (T) store.computeIfAbsent(key, unused -> factory.get());
+    }
+
+    private void removeIfEmpty(@NotNull String key, boolean empty) {
+        if (empty) {
+            store.remove(key);
+        }
+    }
+
+    private int index(int index, int size) {
+        return Math.max(0, index < 0 ? size + index : index);
+    }
+
+    private static double parseScore(@NotNull String score) {
+        switch (score.toLowerCase(Locale.ROOT)) {
+            case "-inf":
+                return Double.NEGATIVE_INFINITY;
+            case "inf":
+            case "+inf":
+                return Double.POSITIVE_INFINITY;
+            default:
+                return Double.parseDouble(score);
+        }
+    }
+
+    private static @NotNull String formatScore(double score) {
+        return score == Math.rint(score) && !Double.isInfinite(score) ? Long.toString((long) score) : Double.toString(score);
+    }
+
+    private @Nullable List<String> readCommand(@NotNull InputStream input) throws IOException {
+        String line = readLine(input);
+        if (line == null) {
+            return null;
+        }
+
+        if (line.charAt(0) != '*') {
+            return List.of(line.trim().split(" +"));
+        }
+
+        int count = Integer.parseInt(line.substring(1));
+        List<String> command = new ArrayList<>(count);
+
+        for (int index = 0; index < count; index++) {
+            String header = readLine(input);
+            if (header == null) {
+                return null;
+            }
+
+            byte[] bytes = input.readNBytes(Integer.parseInt(header.substring(1)));
+            input.skipNBytes(2);
+
+            command.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+
+        return command;
+    }
+
+    private @Nullable String readLine(@NotNull InputStream input) throws IOException {
+        StringBuilder builder = new StringBuilder();
+
+        int read;
+        while ((read = input.read()) != '\n') {
+            if (read == -1) {
+                return null;
+            }
+
+            if (read != '\r') {
+                builder.append((char) read);
+            }
+        }
+
+        return builder.toString();
+    }
+
+    private void writeReply(@NotNull OutputStream output, @Nullable Object reply) throws IOException {
+        if (reply == null) {
+            output.write("$-1\r\n".getBytes(StandardCharsets.US_ASCII));
+        } else if (reply instanceof StatusReply) {
+            output.write(("+" + ((StatusReply) reply).message + "\r\n").getBytes(StandardCharsets.UTF_8));
+        } else if (reply instanceof ErrorReply) {
+            output.write(("-" + ((ErrorReply) reply).message + "\r\n").getBytes(StandardCharsets.UTF_8));
+        } else if (reply instanceof Long) {
+            output.write((":" + reply + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        } else if (reply instanceof List) {
+            List<?> values = (List<?>) reply;
+
+            output.write(("*" + values.size() + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            for (Object value : values) {
+                writeReply(output, value);
+            }
+        } else {
+            byte[] bytes = reply.toString().getBytes(StandardCharsets.UTF_8);
+
+            output.write(("$" + bytes.length + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            output.write(bytes);
+            output.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    private static class SortedSet {
+
+        private final Map<String, Double> scores = new HashMap<>();
+        private final TreeSet<Map.Entry<String, Double>> ordered = new TreeSet<>(SCORE_ORDER);
+
+        private boolean add(@NotNull String member, double score) {
+            Double previous = scores.put(member, score);
+
+            if (previous != null) {
+                ordered.remove(Map.entry(member, previous));
+            }
+
+            ordered.add(Map.entry(member, score));
+            return previous == null;
+        }
+
+        private boolean remove(@NotNull String member) {
+            Double previous = scores.remove(member);
+
+            if (previous == null) {
+                return false;
+            }
+
+            ordered.remove(Map.entry(member, previous));
+            return true;
+        }
+
+        private @NotNull List<Map.Entry<String, Double>> inRange(@NotNull String min, @NotNull String max) {
+            boolean minExclusive = min.startsWith("(");
+            boolean maxExclusive = max.startsWith("(");
+
+            double from = parseScore(minExclusive ? min.substring(1) : min);
+            double to = parseScore(maxExclusive ? max.substring(1) : max);
+
+            List<Map.Entry<String, Double>> entries = new ArrayList<>();
+            for (Map.Entry<String, Double> entry : ordered) {
+                double score = entry.getValue();
+
+                if (score > to || (maxExclusive && score == to)) {
+                    break;
+                }
+
+                if (score > from || (!minExclusive && score == from)) {
+                    entries.add(entry);
+                }
+            }
+
+            return entries;
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class StatusReply {
+
+        private final String message;
+    }
+
+    @RequiredArgsConstructor
+    private static class ErrorReply {
+
+        private final String message;
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Luiz Otávio
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.teamdiluvian.wakacraft.benchmark;
+
+import com.teamdiluvian.wakacraft.leaderboard.RedisWakaLeaderboard;
+import com.teamdiluvian.wakacraft.leaderboard.WakaRank;
+import com.teamdiluvian.wakacraft.metrics.WakaMetrics;
+import com.teamdiluvian.wakacraft.model.WakaPlayer;
+import com.teamdiluvian.wakacraft.persistent.cache.RedisWakaSnapshot;
+import com.teamdiluvian.wakacraft.presence.RedisPresenceDispatcher;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import redis.clients.jedis.JedisPool;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Logger;
+
+/**
+ * Redis round trips of the presence, snapshot and leaderboard paths, against an {@link InProcessRedis}.
+ *
+ * @author TeamDiluvian
+ * @since 18/10/2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisBenchmark {
+
+    private static final int PLAYERS = 10_000;
+
+    // Long enough for the scheduled flushes and heartbeats to stay out of the measurements
+    private static final long INTERVAL = TimeUnit.HOURS.toMillis(1);
+    private static final Logger LOGGER = Logger.getLogger("Wakacraft");
+
+    private final UUID[] uniqueIds = new UUID[PLAYERS];
+    private final String[] names = new String[PLAYERS];
+
+    private InProcessRedis redis;
+    private JedisPool jedisPool;
+
+    private RedisPresenceDispatcher remoteDispatcher;
+    private RedisPresenceDispatcher presenceDispatcher;
+    private RedisWakaSnapshot wakaSnapshot;
+    private RedisWakaLeaderboard wakaLeaderboard;
+
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        redis = new InProcessRedis();
+        jedisPool = new JedisPool(new GenericObjectPoolConfig<>(), "127.0.0.1", redis.getPort());
+
+        WakaMetrics metrics = new WakaMetrics();
+
+        wakaSnapshot = new RedisWakaSnapshot(jedisPool, INTERVAL, metrics, LOGGER);
+        wakaLeaderboard = new RedisWakaLeaderboard(jedisPool, 1000, metrics, LOGGER);
+
+        long now = System.currentTimeMillis();
+        List<WakaPlayer> wakaPlayers = new ArrayList<>(PLAYERS);
+
+        // Every player is online on another proxy, lookups have to ask Redis
+        remoteDispatcher = new RedisPresenceDispatcher(jedisPool, "remote", INTERVAL, INTERVAL, INTERVAL, metrics, LOGGER);
+
+        for (int index = 0; index < PLAYERS; index++) {
+            uniqueIds[index] = UUID.randomUUID();
+            names[index] = "Player" + index;
+
+            WakaPlayer wakaPlayer = WakaPlayer.of(uniqueIds[index], names[index], now, now - index * 1000L);
+
+            wakaPlayers.add(wakaPlayer);
+            wakaSnapshot.store(wakaPlayer);
+            remoteDispatcher.join(uniqueIds[index]);
+        }
+
+        wakaLeaderboard.update(wakaPlayers);
+        remoteDispatcher.flush();
+
+        presenceDispatcher = new RedisPresenceDispatcher(jedisPool, "local", INTERVAL, INTERVAL, INTERVAL, metrics, LOGGER);
+
+        // Snapshot and leaderboard writes are asynchronous, as is the first heartbeat
+        UUID last = uniqueIds[PLAYERS - 1];
+
+        await(() -> wakaSnapshot.find(last, null).join() != null);
+        await(() -> wakaLeaderboard.size().join() == PLAYERS);
+        await(() -> presenceDispatcher.isOnline(last).join());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        presenceDispatcher.close(10, TimeUnit.SECONDS);
+        remoteDispatcher.close(10, TimeUnit.SECONDS);
+        wakaSnapshot.close(10, TimeUnit.SECONDS);
+        wakaLeaderboard.close(10, TimeUnit.SECONDS);
+
+        jedisPool.close();
+        redis.close();
+    }
+
+    @Benchmark
+    public void login() {
+        presenceDispatcher.join(uniqueIds[nextIndex()]);
+        presenceDispatcher.flush();
+    }
+
+    @Benchmark
+    public void disconnect() {
+        presenceDispatcher.leave(uniqueIds[nextIndex()]);
+        presenceDispatcher.flush();
+    }
+
+    @Benchmark
+    public boolean isOnline() {
+        return presenceDispatcher.isOnline(uniqueIds[nextIndex()]).join();
+    }
+
+    @Benchmark
+    public WakaPlayer findSnapshot() {
+        return wakaSnapshot.find(uniqueIds[nextIndex()], null).join();
+    }
+
+    @Benchmark
+    public WakaPlayer findSnapshotByName() {
+        return wakaSnapshot.find(null, names[nextIndex()]).join();
+    }
+
+    @Benchmark
+    public WakaRank rank() {
+        return wakaLeaderboard.rank(uniqueIds[nextIndex()]).join();
+    }
+
+    @Benchmark
+    public List<WakaRank> top() {
+        return wakaLeaderboard.top(1, 10).join();
+    }
+
+    private int nextIndex() {
+        int index = next;
+
+        next = (next + 1) % PLAYERS;
+        return index;
+    }
+
+    private void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline >= 0) {
+                throw new IllegalStateException("The benchmark state was not ready in time");
+            }
+
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Luiz Otávio
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.teamdiluvian.wakacraft.benchmark;
+
+import com.teamdiluvian.wakacraft.model.WakaPlayer;
+import com.teamdiluvian.wakacraft.persistent.SQLWakaDatabase;
+import com.teamdiluvian.wakacraft.persistent.WakaDatabase;
+import com.teamdiluvian.wakacraft.persistent.connector.HikariWakaConnector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load, save and create paths of {@link SQLWakaDatabase} against an in-memory H2 database.
+ *
+ * @author TeamDiluvian
+ * @since 18/10/2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SQLWakaDatabaseBenchmark {
+
+    private static final int PLAYERS = 10_000;
+    private static final int BATCH_SIZE = 100;
+
+    private final UUID[] uniqueIds = new UUID[PLAYERS];
+    private final String[] names = new String[PLAYERS];
+
+    private HikariWakaConnector connector;
+    private WakaDatabase wakaDatabase;
+
+    private int next;
+    private int created;
+
+    @Setup
+    public void setup() {
+        Properties properties = new Properties();
+        properties.setProperty("driverClassName", "org.h2.Driver");
+        properties.setProperty(
+            "jdbcUrl",
+            "jdbc:h2:mem:wakacraft;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1"
+        );
+        properties.setProperty("maximumPoolSize", "4");
+
+        connector = new HikariWakaConnector(properties);
+        connector.connect();
+
+        wakaDatabase = new SQLWakaDatabase(Collections.singletonList(connector));
+
+        long now = System.currentTimeMillis();
+        List<WakaPlayer> wakaPlayers = new ArrayList<>(PLAYERS);
+
+        for (int index = 0; index < PLAYERS; index++) {
+            uniqueIds[index] = UUID.randomUUID();
+            names[index] = "Player" + index;
+
+            wakaPlayers.add(WakaPlayer.of(uniqueIds[index], names[index], now, now - index * 1000L));
+        }
+
+        wakaDatabase.createPlayers(wakaPlayers).join();
+    }
+
+    @TearDown
+    public void tearDown() {
+        wakaDatabase.shutdown(10, TimeUnit.SECONDS);
+        connector.disconnect();
+    }
+
+    @Benchmark
+    public WakaPlayer loadPlayer() {
+        int index = nextIndex();
+
+        wakaDatabase.getPlayerCache().invalidate(uniqueIds[index]);
+
+        return wakaDatabase.loadPlayer(uniqueIds[index], null).join();
+    }
+
+    @Benchmark
+    public WakaPlayer loadPlayerByName() {
+        int index = nextIndex();
+
+        wakaDatabase.getPlayerCache().invalidate(uniqueIds[index]);
+
+        return wakaDatabase.loadPlayer(null, names[index]).join();
+    }
+
+    @Benchmark
+    public WakaPlayer loadPlayerCached() {
+        return wakaDatabase.loadPlayer(uniqueIds[nextIndex()], null).join();
+    }
+
+    @Benchmark
+    public Map<UUID, WakaPlayer> loadPlayers() {
+        List<UUID> batch = new ArrayList<>(BATCH_SIZE);
+
+        for (int count = 0; count < BATCH_SIZE; count++) {
+            UUID uniqueId = uniqueIds[nextIndex()];
+
+            wakaDatabase.getPlayerCache().invalidate(uniqueId);
+            batch.add(uniqueId);
+        }
+
+        return wakaDatabase.loadPlayers(batch).join();
+    }
+
+    @Benchmark
+    public void savePlayer() {
+        wakaDatabase.savePlayer(null, names[nextIndex()], System.currentTimeMillis()).join();
+    }
+
+    @Benchmark
+    public void savePlayers() {
+        long now = System.currentTimeMillis();
+        Map<UUID, Long> measureTimes = new HashMap<>();
+
+        for (int count = 0; count < BATCH_SIZE; count++) {
+            measureTimes.put(uniqueIds[nextIndex()], now);
+        }
+
+        wakaDatabase.savePlayers(measureTimes).join();
+    }
+
+    @Benchmark
+    public WakaPlayer createPlayer() {
+        return wakaDatabase.createPlayer(UUID.randomUUID(), "Created" + created++, System.currentTimeMillis()).join();
+    }
+
+    private int nextIndex() {
+        int index = next;
+
+        next = (next + 1) % PLAYERS;
+        return index;
+    }
+}
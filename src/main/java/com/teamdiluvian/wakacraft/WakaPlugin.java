@@ -26,9 +26,21 @@
 package com.teamdiluvian.wakacraft;
 
 import com.teamdiluvian.wakacraft.command.WakaCommand;
+import com.teamdiluvian.wakacraft.leaderboard.RedisWakaLeaderboard;
 import com.teamdiluvian.wakacraft.listener.WakaHandler;
+import com.teamdiluvian.wakacraft.metrics.WakaMetrics;
+import com.teamdiluvian.wakacraft.metrics.WakaPoolMetrics;
 import com.teamdiluvian.wakacraft.persistent.SQLWakaDatabase;
+import com.teamdiluvian.wakacraft.persistent.WakaDatabase;
+import com.teamdiluvian.wakacraft.persistent.cache.RedisWakaInvalidator;
+import com.teamdiluvian.wakacraft.persistent.cache.RedisWakaSnapshot;
 import com.teamdiluvian.wakacraft.persistent.connector.HikariWakaConnector;
+import com.teamdiluvian.wakacraft.persistent.journal.WakaJournal;
+import com.teamdiluvian.wakacraft.presence.RedisPresenceDispatcher;
+import com.teamdiluvian.wakacraft.session.WakaSessionTracker;
+import com.teamdiluvian.wakacraft.task.WakaCheckpointTask;
+import com.teamdiluvian.wakacraft.task.WakaMetricsTask;
+import com.teamdiluvian.wakacraft.task.WakaRollupTask;
 import me.saiintbrisson.bungee.command.BungeeFrame;
 import net.md_5.bungee.api.plugin.Plugin;
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
@@ -39,7 +51,11 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Luiz Otávio de Farias Corrêa
@@ -47,8 +63,22 @@ import java.util.Properties;
  */
 public class WakaPlugin extends Plugin {
 
-    private SQLWakaDatabase wakaDatabase;
+    private final WakaMetrics metrics = new WakaMetrics();
+
+    private List<HikariWakaConnector> connectors;
+    private WakaDatabase wakaDatabase;
     private JedisPool jedisPool;
+    private RedisWakaInvalidator wakaInvalidator;
+    private RedisWakaSnapshot wakaSnapshot;
+    private RedisWakaLeaderboard wakaLeaderboard;
+    private WakaJournal wakaJournal;
+    private WakaSessionTracker sessionTracker;
+    private RedisPresenceDispatcher presenceDispatcher;
+
+    private long shutdownTimeout;
+    private long checkpointInterval;
+    private long rollupInterval;
+    private long metricsInterval;
 
     @Override
     public void onLoad() {
@@ -73,33 +103,138 @@ public class WakaPlugin extends Plugin {
             throw new RuntimeException(e);
         }
 
-        HikariWakaConnector connector = new HikariWakaConnector(properties);
+        // A single proxy can keep its data in process instead of on a MySQL server
+        connectors = "embedded".equalsIgnoreCase(properties.getProperty("wakacraft.storage", "mysql")) ?
+            Collections.singletonList(HikariWakaConnector.embedded(properties, getDataFolder().toPath())) :
+            HikariWakaConnector.sharded(properties);
+
+        connectors.forEach(connector -> connector.setMetricsTrackerFactory(new WakaPoolMetrics(metrics)));
+        connectors.forEach(HikariWakaConnector::connect);
+
+        wakaDatabase = new SQLWakaDatabase(connectors, metrics, getLogger());
+
+        sessionTracker = new WakaSessionTracker(getLogger());
+        sessionTracker.addPlaytimeListener(wakaDatabase::recordPlaytime);
+
+        wakaJournal = new WakaJournal(
+            wakaDatabase,
+            new File(getDataFolder(), "journal").toPath(),
+            Integer.parseInt(properties.getProperty("wakacraft.journal.segmentRecords", "16384")),
+            Integer.parseInt(properties.getProperty("wakacraft.journal.maxSegments", "4")),
+            Long.parseLong(properties.getProperty("wakacraft.journal.replayInterval", "10000")),
+            Long.parseLong(properties.getProperty("wakacraft.journal.replayDelay", "30000")),
+            Integer.parseInt(properties.getProperty("wakacraft.writeBehind.batchSize", "500")),
+            getLogger()
+        );
 
-        connector.connect();
+        metrics.gauge("wakacraft_sessions", "Open play sessions on this proxy", sessionTracker::size);
+        metrics.gauge("wakacraft_journal_unconfirmed", "Journal records not yet confirmed by the database", wakaJournal::getUnconfirmed);
+        metrics.gauge("wakacraft_journal_segments", "Journal segments on disk", wakaJournal::getSegments);
 
-        wakaDatabase = new SQLWakaDatabase(connector);
+        shutdownTimeout = Long.parseLong(properties.getProperty("wakacraft.shutdownTimeout", "10000"));
+        checkpointInterval = Long.parseLong(properties.getProperty("wakacraft.checkpoint.interval", "60"));
+        rollupInterval = Long.parseLong(properties.getProperty("wakacraft.history.rollupInterval", "900"));
+        metricsInterval = Long.parseLong(properties.getProperty("wakacraft.metrics.interval", "15"));
 
         jedisPool = new JedisPool(
             new GenericObjectPoolConfig<>(),
             properties.getProperty("redis.url")
         );
+
+        wakaInvalidator = new RedisWakaInvalidator(jedisPool, wakaDatabase.getPlayerCache(), getLogger());
+        wakaDatabase.addChangeListener(wakaInvalidator);
+
+        wakaSnapshot = new RedisWakaSnapshot(
+            jedisPool,
+            Long.parseLong(properties.getProperty("wakacraft.snapshot.expireAfter", "604800000")),
+            metrics,
+            getLogger()
+        );
+        wakaDatabase.setSnapshot(wakaSnapshot);
+
+        wakaLeaderboard = new RedisWakaLeaderboard(
+            jedisPool,
+            Integer.parseInt(properties.getProperty("wakacraft.leaderboard.rebuildBatchSize", "1000")),
+            metrics,
+            getLogger()
+        );
+        wakaDatabase.setLeaderboard(wakaLeaderboard);
+
+        String proxyId = properties.getProperty("wakacraft.proxyId", "");
+
+        presenceDispatcher = new RedisPresenceDispatcher(
+            jedisPool,
+            proxyId.isEmpty() ? UUID.randomUUID().toString() : proxyId,
+            Long.parseLong(properties.getProperty("wakacraft.presence.flushInterval", "50")),
+            Long.parseLong(properties.getProperty("wakacraft.presence.heartbeatInterval", "5000")),
+            Long.parseLong(properties.getProperty("wakacraft.presence.expireAfter", "15000")),
+            metrics,
+            getLogger()
+        );
     }
 
     @Override
     public void onEnable() {
-        getProxy().getPluginManager().registerListener(this, new WakaHandler(wakaDatabase, jedisPool));
+        getProxy().getPluginManager().registerListener(this, new WakaHandler(wakaDatabase, presenceDispatcher, wakaJournal, sessionTracker, metrics, getLogger()));
 
         BungeeFrame bungeeFrame = new BungeeFrame(this);
 
         bungeeFrame.registerCommands(
-            new WakaCommand(wakaDatabase, jedisPool)
+            new WakaCommand(wakaDatabase, presenceDispatcher, wakaJournal, sessionTracker, wakaLeaderboard, metrics)
         );
+
+        // Fills the leaderboard of a fresh Redis, later saves keep it current
+        wakaLeaderboard.rebuildIfEmpty(wakaDatabase).exceptionally(throwable -> {
+            getLogger().warning("Could not rebuild the leaderboard: " + throwable.getMessage());
+            return null;
+        });
+
+        if (checkpointInterval > 0) {
+            getProxy().getScheduler().schedule(
+                this,
+                new WakaCheckpointTask(wakaDatabase, sessionTracker, getLogger()),
+                checkpointInterval,
+                checkpointInterval,
+                TimeUnit.SECONDS
+            );
+        }
+
+        if (rollupInterval > 0) {
+            getProxy().getScheduler().schedule(
+                this,
+                new WakaRollupTask(wakaDatabase, getLogger()),
+                0,
+                rollupInterval,
+                TimeUnit.SECONDS
+            );
+        }
+
+        if (metricsInterval > 0) {
+            getProxy().getScheduler().schedule(
+                this,
+                new WakaMetricsTask(metrics, new File(getDataFolder(), "metrics.prom").toPath(), getLogger()),
+                metricsInterval,
+                metricsInterval,
+                TimeUnit.SECONDS
+            );
+        }
     }
 
     @Override
     public void onDisable() {
-        wakaDatabase.getConnector()
-            .disconnect();
+        getProxy().getScheduler().cancel(this);
+
+        // Players still connected get their time on the current server counted before the final flush
+        sessionTracker.checkpoint(System.currentTimeMillis());
+
+        wakaDatabase.shutdown(shutdownTimeout, TimeUnit.MILLISECONDS);
+        wakaJournal.close(shutdownTimeout, TimeUnit.MILLISECONDS);
+        wakaInvalidator.close(shutdownTimeout, TimeUnit.MILLISECONDS);
+        wakaSnapshot.close(shutdownTimeout, TimeUnit.MILLISECONDS);
+        wakaLeaderboard.close(shutdownTimeout, TimeUnit.MILLISECONDS);
+        presenceDispatcher.close(shutdownTimeout, TimeUnit.MILLISECONDS);
+
+        connectors.forEach(HikariWakaConnector::disconnect);
 
         jedisPool.close();
     }
@@ -25,8 +25,19 @@
 
 package com.teamdiluvian.wakacraft.command;
 
+import com.teamdiluvian.wakacraft.leaderboard.RedisWakaLeaderboard;
+import com.teamdiluvian.wakacraft.leaderboard.WakaRank;
+import com.teamdiluvian.wakacraft.metrics.WakaHistogram;
+import com.teamdiluvian.wakacraft.metrics.WakaMetrics;
+import com.teamdiluvian.wakacraft.model.WakaHistory;
 import com.teamdiluvian.wakacraft.model.WakaPlayer;
-import com.teamdiluvian.wakacraft.persistent.SQLWakaDatabase;
+import com.teamdiluvian.wakacraft.persistent.WakaDatabase;
+import com.teamdiluvian.wakacraft.persistent.connector.WakaCircuitBreaker;
+import com.teamdiluvian.wakacraft.persistent.executor.WakaExecutor;
+import com.teamdiluvian.wakacraft.persistent.journal.WakaJournal;
+import com.teamdiluvian.wakacraft.persistent.journal.WakaJournalRecord;
+import com.teamdiluvian.wakacraft.presence.RedisPresenceDispatcher;
+import com.teamdiluvian.wakacraft.session.WakaSessionTracker;
 import lombok.RequiredArgsConstructor;
 import me.saiintbrisson.minecraft.command.annotation.Command;
 import me.saiintbrisson.minecraft.command.annotation.Optional;
@@ -39,10 +50,16 @@ import net.md_5.bungee.api.chat.BaseComponent;
 import net.md_5.bungee.api.chat.TextComponent;
 import net.md_5.bungee.api.config.ServerInfo;
 import net.md_5.bungee.api.connection.ProxiedPlayer;
-import redis.clients.jedis.Jedis;
-import redis.clients.jedis.JedisPool;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * @author Luiz Otávio de Farias Corrêa
@@ -51,10 +68,16 @@ import java.util.Arrays;
 @RequiredArgsConstructor
 public class WakaCommand {
 
+    private static final int TOP_PAGE_SIZE = 10;
+
     private final ProxyServer proxyServer = ProxyServer.getInstance();
 
-    private final SQLWakaDatabase wakaDatabase;
-    private final JedisPool jedisPool;
+    private final WakaDatabase wakaDatabase;
+    private final RedisPresenceDispatcher presenceDispatcher;
+    private final WakaJournal wakaJournal;
+    private final WakaSessionTracker sessionTracker;
+    private final RedisWakaLeaderboard leaderboard;
+    private final WakaMetrics metrics;
 
     @Command(
         name = "wakacraft",
@@ -67,8 +90,15 @@ public class WakaCommand {
             " ",
             " &eWakacraft Help",
             "  &e/wakacraft get [player] &7- Get the waka time of a player.",
+            "  &e/wakacraft get <player> servers &7- Get the waka time of a player on each server.",
+            "  &e/wakacraft history [player] &7- Get the recent waka time of a player.",
+            "  &e/wakacraft top [page] &7- Get the players with the most waka time.",
+            "  &e/wakacraft rank [player] &7- Get the position of a player on the leaderboard.",
             "  &e/wakacraft reset [player] &7- Reset the waka time of a player.",
             "  &e/wakacraft set [player] [time] &7- Set the waka time of a player.",
+            "  &e/wakacraft status &7- Show the state of the database queue.",
+            "  &e/wakacraft rebuild &7- Rebuild the leaderboard from the database.",
+            "  &e/wakacraft metrics [filter] &7- Show the latency and counters of the plugin.",
             " "
         };
 
@@ -82,13 +112,36 @@ public class WakaCommand {
     @Command(
         name = "wakacraft.get"
     )
-    public void handleGetCommand(Context<ProxiedPlayer> context, @Optional String name) {
+    public void handleGetCommand(Context<ProxiedPlayer> context, @Optional String name, @Optional String view) {
         ProxiedPlayer proxiedPlayer = context.getSender();
 
+        if ("servers".equalsIgnoreCase(view)) {
+            handleServersCommand(proxiedPlayer, name);
+            return;
+        }
+
         wakaDatabase.loadPlayer(
             name == null ? proxiedPlayer.getUniqueId() : null,
             name == null ? proxiedPlayer.getName() : name
         ).whenComplete((wakaPlayer, throwable) -> {
+            if (throwable != null && isRejected(throwable)) {
+                proxiedPlayer.sendMessage(
+                    TextComponent.fromLegacyText(
+                        colorize("&cThe database is busy right now, try again in a few seconds.")
+                    )
+                );
+                return;
+            }
+
+            if (throwable != null && WakaCircuitBreaker.isConnectionFailure(throwable)) {
+                proxiedPlayer.sendMessage(
+                    TextComponent.fromLegacyText(
+                        colorize("&cThe database is unavailable right now, try again later.")
+                    )
+                );
+                return;
+            }
+
             if (throwable != null) {
                 proxiedPlayer.sendMessage(
                     TextComponent.fromLegacyText(
@@ -126,13 +179,15 @@ public class WakaCommand {
                 return;
             }
 
-            try (Jedis jedis = jedisPool.getResource()) {
-                if (!jedis.sismember("wakacraft-current-players", wakaPlayer.getPlayerName())) {
+            presenceDispatcher.isOnline(wakaPlayer.getUniqueId()).whenComplete((online, error) -> {
+                // Without presence the stored time is still right, it only stops short of the current session
+                if (error != null || !online) {
                     proxiedPlayer.sendMessage(
                         TextComponent.fromLegacyText(
                             colorize("&e" + wakaPlayer.getFormatted() + " &eof waka time.")
                         )
                     );
+                    return;
                 }
 
                 proxiedPlayer.sendMessage(
@@ -140,7 +195,223 @@ public class WakaCommand {
                         colorize("&eThe waka time of &a" + wakaPlayer.getPlayerName() + " &eis &a" + wakaPlayer.getFormatted(System.currentTimeMillis()))
                     )
                 );
+            });
+        });
+    }
+
+    private void handleServersCommand(ProxiedPlayer proxiedPlayer, String name) {
+        wakaDatabase.findPlayer(name)
+            .thenCompose(wakaPlayer -> wakaPlayer == null ? CompletableFuture.<Map<String, Long>>completedFuture(null) :
+                wakaDatabase.loadServerTimes(wakaPlayer.getUniqueId()))
+            .whenComplete((serverTimes, throwable) -> {
+                if (throwable != null) {
+                    proxiedPlayer.sendMessage(
+                        TextComponent.fromLegacyText(
+                            colorize(isRejected(throwable) || WakaCircuitBreaker.isConnectionFailure(throwable) ?
+                                "&cThe database is unavailable right now, try again later." :
+                                "&cAn error occurred while trying to get the waka time of the player.")
+                        )
+                    );
+                    return;
+                }
+
+                if (serverTimes == null) {
+                    proxiedPlayer.sendMessage(
+                        TextComponent.fromLegacyText(
+                            colorize("&cThe player &e" + name + " &cwas not found.")
+                        )
+                    );
+                    return;
+                }
+
+                if (serverTimes.isEmpty()) {
+                    proxiedPlayer.sendMessage(
+                        TextComponent.fromLegacyText(
+                            colorize("&cThe player &e" + name + " &chas no waka time on any server yet.")
+                        )
+                    );
+                    return;
+                }
+
+                List<String> messages = new ArrayList<>();
+                messages.add(" ");
+                messages.add(" &eWaka time of &a" + name + " &eper server");
+
+                serverTimes.forEach((server, time) -> messages.add("  &e" + server + " &7- &a" + WakaPlayer.format(time)));
+
+                messages.add(" ");
+
+                proxiedPlayer.sendMessage(
+                    TextComponent.fromLegacyText(
+                        colorize(String.join("\n", messages))
+                    )
+                );
+            });
+    }
+
+    @Command(
+        name = "wakacraft.history"
+    )
+    public void handleHistoryCommand(Context<ProxiedPlayer> context, @Optional String name) {
+        ProxiedPlayer proxiedPlayer = context.getSender();
+        String playerName = name == null ? proxiedPlayer.getName() : name;
+
+        lookupPlayer(proxiedPlayer, name)
+            .thenCompose(wakaPlayer -> wakaPlayer == null ? CompletableFuture.<WakaHistory>completedFuture(null) :
+                wakaDatabase.loadHistory(wakaPlayer.getUniqueId(), System.currentTimeMillis()))
+            .whenComplete((wakaHistory, throwable) -> {
+                if (throwable != null) {
+                    proxiedPlayer.sendMessage(
+                        TextComponent.fromLegacyText(
+                            colorize(isRejected(throwable) || WakaCircuitBreaker.isConnectionFailure(throwable) ?
+                                "&cThe database is unavailable right now, try again later." :
+                                "&cAn error occurred while trying to get the waka time of the player.")
+                        )
+                    );
+                    return;
+                }
+
+                if (wakaHistory == null) {
+                    proxiedPlayer.sendMessage(
+                        TextComponent.fromLegacyText(
+                            colorize("&cThe player &e" + playerName + " &cwas not found.")
+                        )
+                    );
+                    return;
+                }
+
+                String[] messages = {
+                    " ",
+                    " &eRecent waka time of &a" + playerName,
+                    "  &eToday &7- &a" + formatOrNone(wakaHistory.getToday()),
+                    "  &eThis week &7- &a" + formatOrNone(wakaHistory.getThisWeek()),
+                    "  &eLast 7 days &7- &a" + formatOrNone(wakaHistory.getLastSevenDays()),
+                    "  &eLast 30 days &7- &a" + formatOrNone(wakaHistory.getLastThirtyDays()),
+                    " "
+                };
+
+                proxiedPlayer.sendMessage(
+                    TextComponent.fromLegacyText(
+                        colorize(String.join("\n", messages))
+                    )
+                );
+            });
+    }
+
+    @Command(
+        name = "wakacraft.top"
+    )
+    public void handleTopCommand(Context<ProxiedPlayer> context, @Optional String page) {
+        ProxiedPlayer proxiedPlayer = context.getSender();
+
+        int pageNumber;
+        try {
+            pageNumber = page == null ? 1 : Integer.parseInt(page);
+        } catch (NumberFormatException exception) {
+            pageNumber = 0;
+        }
+
+        if (pageNumber < 1) {
+            proxiedPlayer.sendMessage(
+                TextComponent.fromLegacyText(
+                    colorize("&cThe page &e" + page + " &cis not valid.")
+                )
+            );
+            return;
+        }
+
+        int shownPage = pageNumber;
+
+        leaderboard.top(pageNumber, TOP_PAGE_SIZE).whenComplete((ranks, throwable) -> {
+            if (throwable != null) {
+                proxiedPlayer.sendMessage(
+                    TextComponent.fromLegacyText(
+                        colorize("&cAn error occurred while trying to get the leaderboard.")
+                    )
+                );
+                return;
+            }
+
+            if (ranks.isEmpty()) {
+                proxiedPlayer.sendMessage(
+                    TextComponent.fromLegacyText(
+                        colorize("&cThere are no players on page &e" + shownPage + "&c.")
+                    )
+                );
+                return;
+            }
+
+            List<String> messages = new ArrayList<>();
+            messages.add(" ");
+            messages.add(" &eWaka time leaderboard &7(page " + shownPage + ")");
+
+            for (WakaRank rank : ranks) {
+                messages.add("  &e#" + rank.getRank() + " &a" + nameOf(rank) + " &7- &a" + formatOrNone(rank.getPlayTime()));
+            }
+
+            messages.add(" ");
+
+            proxiedPlayer.sendMessage(
+                TextComponent.fromLegacyText(
+                    colorize(String.join("\n", messages))
+                )
+            );
+        });
+    }
+
+    @Command(
+        name = "wakacraft.rank"
+    )
+    public void handleRankCommand(Context<ProxiedPlayer> context, @Optional String name) {
+        ProxiedPlayer proxiedPlayer = context.getSender();
+        String playerName = name == null ? proxiedPlayer.getName() : name;
+
+        lookupPlayer(proxiedPlayer, name).whenComplete((wakaPlayer, throwable) -> {
+            if (throwable != null) {
+                proxiedPlayer.sendMessage(
+                    TextComponent.fromLegacyText(
+                        colorize(isRejected(throwable) || WakaCircuitBreaker.isConnectionFailure(throwable) ?
+                            "&cThe database is unavailable right now, try again later." :
+                            "&cAn error occurred while trying to get the rank of the player.")
+                    )
+                );
+                return;
             }
+
+            if (wakaPlayer == null) {
+                proxiedPlayer.sendMessage(
+                    TextComponent.fromLegacyText(
+                        colorize("&cThe player &e" + playerName + " &cwas not found.")
+                    )
+                );
+                return;
+            }
+
+            leaderboard.rank(wakaPlayer.getUniqueId()).whenComplete((rank, error) -> {
+                if (error != null) {
+                    proxiedPlayer.sendMessage(
+                        TextComponent.fromLegacyText(
+                            colorize("&cAn error occurred while trying to get the rank of the player.")
+                        )
+                    );
+                    return;
+                }
+
+                if (rank == null) {
+                    proxiedPlayer.sendMessage(
+                        TextComponent.fromLegacyText(
+                            colorize("&cThe player &e" + playerName + " &cis not on the leaderboard yet.")
+                        )
+                    );
+                    return;
+                }
+
+                proxiedPlayer.sendMessage(
+                    TextComponent.fromLegacyText(
+                        colorize("&a" + nameOf(rank) + " &eis &a#" + rank.getRank() + " &ewith &a" + formatOrNone(rank.getPlayTime()) + " &eof waka time.")
+                    )
+                );
+            });
         });
     }
 
@@ -151,10 +422,12 @@ public class WakaCommand {
     public void handleResetCommand(Context<ProxiedPlayer> context, @Optional String name) {
         ProxiedPlayer proxiedPlayer = context.getSender();
 
-        wakaDatabase.resetPlayer(
-            name == null ? proxiedPlayer.getUniqueId() : null,
-            name == null ? proxiedPlayer.getName() : name
-        ).thenAccept((unused) -> {
+        UUID uniqueId = name == null ? proxiedPlayer.getUniqueId() : null;
+        String playerName = name == null ? proxiedPlayer.getName() : name;
+
+        long sequence = wakaJournal.append(WakaJournalRecord.Type.RESET, uniqueId, playerName, System.currentTimeMillis());
+
+        wakaJournal.confirmOnSuccess(sequence, wakaDatabase.resetPlayer(uniqueId, playerName)).thenAccept((unused) -> {
             proxiedPlayer.sendMessage(
                 TextComponent.fromLegacyText(
                     colorize("&aThe waka time of the player &e" + name + " &awas reset.")
@@ -170,11 +443,13 @@ public class WakaCommand {
     public void handleSetCommand(Context<ProxiedPlayer> context, String name, long time) {
         ProxiedPlayer proxiedPlayer = context.getSender();
 
-        wakaDatabase.savePlayer(
+        long sequence = wakaJournal.append(WakaJournalRecord.Type.SET, null, name, time);
+
+        wakaJournal.confirmOnSuccess(sequence, wakaDatabase.savePlayer(
             null,
             name,
             time
-        ).thenAccept(unused -> {
+        )).thenAccept(unused -> {
             proxiedPlayer.sendMessage(
                 TextComponent.fromLegacyText(
                     colorize("&aThe waka time of the player &e" + name + " &awas set to &etime&a.")
@@ -183,6 +458,144 @@ public class WakaCommand {
         });
     }
 
+    @Command(
+        name = "wakacraft.status",
+        permission = "wakacraft.admin"
+    )
+    public void handleStatusCommand(Context<ProxiedPlayer> context) {
+        ProxiedPlayer proxiedPlayer = context.getSender();
+        WakaExecutor executor = wakaDatabase.getThreadFactory();
+        WakaCircuitBreaker replicaCircuitBreaker = wakaDatabase.getReplicaCircuitBreaker();
+
+        String[] messages = {
+            " ",
+            " &eWakacraft Status",
+            "  &7Sessions: &e" + sessionTracker.size(),
+            "  &7Executor: &e" + executor.getMode().name().toLowerCase(Locale.ROOT),
+            "  &7Circuit: &e" + wakaDatabase.getCircuitBreaker().getState().name().toLowerCase(Locale.ROOT),
+            "  &7Replica: &e" + (replicaCircuitBreaker == null ? "none" :
+                replicaCircuitBreaker.getState().name().toLowerCase(Locale.ROOT)),
+            "  &7Running: &e" + executor.getActiveCount() + " &7Queued: &e" + executor.getQueueDepth(),
+            "  &7Rejected reads: &e" + executor.getRejectedReads() + " &7Rejected writes: &e" + executor.getRejectedWrites(),
+            "  &7Pending saves: &e" + wakaDatabase.getWriteBehindCache().size(),
+            "  &7Coalesced loads: &e" + wakaDatabase.getCoalescedLoads(),
+            "  &7Journal: &e" + wakaJournal.getUnconfirmed() + " &7pending in &e" + wakaJournal.getSegments() + " &7segments",
+            " "
+        };
+
+        proxiedPlayer.sendMessage(
+            TextComponent.fromLegacyText(
+                colorize(String.join("\n", messages))
+            )
+        );
+    }
+
+    @Command(
+        name = "wakacraft.rebuild",
+        permission = "wakacraft.admin"
+    )
+    public void handleRebuildCommand(Context<ProxiedPlayer> context) {
+        ProxiedPlayer proxiedPlayer = context.getSender();
+
+        proxiedPlayer.sendMessage(
+            TextComponent.fromLegacyText(
+                colorize("&eRebuilding the leaderboard...")
+            )
+        );
+
+        leaderboard.rebuild(wakaDatabase).whenComplete((players, throwable) -> {
+            if (throwable != null) {
+                Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+
+                proxiedPlayer.sendMessage(
+                    TextComponent.fromLegacyText(
+                        colorize(cause instanceof IllegalStateException ?
+                            "&cThe leaderboard is already being rebuilt." :
+                            "&cAn error occurred while trying to rebuild the leaderboard.")
+                    )
+                );
+                return;
+            }
+
+            proxiedPlayer.sendMessage(
+                TextComponent.fromLegacyText(
+                    colorize("&aThe leaderboard was rebuilt with &e" + players + " &aplayers.")
+                )
+            );
+        });
+    }
+
+    @Command(
+        name = "wakacraft.metrics",
+        permission = "wakacraft.admin"
+    )
+    public void handleMetricsCommand(Context<ProxiedPlayer> context, @Optional String filter) {
+        ProxiedPlayer proxiedPlayer = context.getSender();
+
+        List<String> messages = new ArrayList<>();
+        messages.add(" ");
+        messages.add(" &eWakacraft Metrics");
+
+        for (Map.Entry<String, WakaHistogram> entry : metrics.getHistograms().entrySet()) {
+            WakaHistogram histogram = entry.getValue();
+            long count = histogram.getCount();
+
+            if (count == 0 || (filter != null && !entry.getKey().contains(filter))) {
+                continue;
+            }
+
+            messages.add(
+                "  &7" + entry.getKey() + ": &e" + count +
+                    " &7mean &e" + formatMillis(histogram.getSum() / count) +
+                    " &7p50 &e" + formatMillis(histogram.getQuantile(0.5)) +
+                    " &7p99 &e" + formatMillis(histogram.getQuantile(0.99)) +
+                    (histogram.getErrors() == 0 ? "" : " &7errors &c" + histogram.getErrors())
+            );
+        }
+
+        metrics.getValues().forEach((name, value) -> {
+            if (filter == null || name.contains(filter)) {
+                messages.add("  &7" + name + ": &e" + value);
+            }
+        });
+
+        messages.add(" ");
+
+        proxiedPlayer.sendMessage(
+            TextComponent.fromLegacyText(
+                colorize(String.join("\n", messages))
+            )
+        );
+    }
+
+    /**
+     * Loads the sender when no name is given, otherwise looks the named player up without creating it.
+     */
+    private CompletableFuture<WakaPlayer> lookupPlayer(ProxiedPlayer proxiedPlayer, String name) {
+        return name == null ? wakaDatabase.loadPlayer(proxiedPlayer.getUniqueId(), proxiedPlayer.getName()) :
+            wakaDatabase.findPlayer(name);
+    }
+
+    private String nameOf(WakaRank rank) {
+        return rank.getPlayerName() == null ? rank.getUniqueId().toString() : rank.getPlayerName();
+    }
+
+    private String formatMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.2fms", nanos / 1_000_000.0);
+    }
+
+    private String formatOrNone(long time) {
+        String formatted = WakaPlayer.format(time);
+
+        return formatted.isEmpty() ? "none" : formatted;
+    }
+
+    private boolean isRejected(Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+
+        return cause instanceof RejectedExecutionException;
+    }
+
     private String colorize(String message) {
         return ChatColor.translateAlternateColorCodes('&', message);
     }
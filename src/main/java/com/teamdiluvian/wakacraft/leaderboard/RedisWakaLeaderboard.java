@@ -0,0 +1,400 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Luiz Otávio
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.teamdiluvian.wakacraft.leaderboard;
+
+import com.teamdiluvian.wakacraft.metrics.WakaHistogram;
+import com.teamdiluvian.wakacraft.metrics.WakaMetrics;
+import com.teamdiluvian.wakacraft.model.WakaPlayer;
+import com.teamdiluvian.wakacraft.persistent.WakaDatabase;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.resps.Tuple;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Mirrors the playtime of every player in a Redis sorted set, so ranks are read without sorting the table.
+ *
+ * @author TeamDiluvian
+ * @since 18/10/2026
+ */
+public class RedisWakaLeaderboard {
+
+    private static final String KEY = "wakacraft-leaderboard";
+    private static final String REBUILD_KEY = "wakacraft-leaderboard:rebuild";
+    private static final String NAMES_KEY = "wakacraft-leaderboard-names";
+    private static final String REBUILD_NAMES_KEY = "wakacraft-leaderboard-names:rebuild";
+
+    private final JedisPool jedisPool;
+    private final int rebuildBatchSize;
+    private final Logger logger;
+
+    private final ExecutorService writer;
+    private final ExecutorService reader;
+
+    private final WakaHistogram updateTimer;
+    private final WakaHistogram readTimer;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // Only touched by the writer thread
+    private boolean rebuilding;
+    private final Set<UUID> updatedDuringRebuild = new HashSet<>();
+
+    public RedisWakaLeaderboard(@NotNull JedisPool jedisPool, int rebuildBatchSize, @NotNull WakaMetrics metrics,
+                                @NotNull Logger logger) {
+        this.jedisPool = jedisPool;
+        this.rebuildBatchSize = rebuildBatchSize;
+        this.logger = logger;
+
+        updateTimer = metrics.histogram("wakacraft_redis_seconds", "Time spent on Redis round trips", "operation", "leaderboard_update");
+        readTimer = metrics.histogram("wakacraft_redis_seconds", "Time spent on Redis round trips", "operation", "leaderboard_read");
+
+        writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable);
+
+            thread.setName("Wakacraft-Leaderboard-Writer");
+
+            return thread;
+        });
+
+        reader = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable);
+
+            thread.setName("Wakacraft-Leaderboard-Reader");
+
+            return thread;
+        });
+    }
+
+    /**
+     * Updates the playtime of the given players in a single pipeline.
+     */
+    public void update(@NotNull Collection<WakaPlayer> wakaPlayers) {
+        if (wakaPlayers.isEmpty()) {
+            return;
+        }
+
+        write(pipeline -> {
+            for (WakaPlayer wakaPlayer : wakaPlayers) {
+                add(pipeline, KEY, NAMES_KEY, wakaPlayer);
+
+                if (rebuilding) {
+                    add(pipeline, REBUILD_KEY, REBUILD_NAMES_KEY, wakaPlayer);
+                    updatedDuringRebuild.add(wakaPlayer.getUniqueId());
+                }
+            }
+        });
+    }
+
+    /**
+     * Sets the playtime of a player back to zero, keeping its name.
+     */
+    public void reset(@NotNull UUID uniqueId) {
+        String member = uniqueId.toString();
+
+        write(pipeline -> {
+            pipeline.zadd(KEY, 0, member);
+
+            if (rebuilding) {
+                pipeline.zadd(REBUILD_KEY, 0, member);
+                updatedDuringRebuild.add(uniqueId);
+            }
+        });
+    }
+
+    /**
+     * @param page the page, starting at 1
+     * @return the players of the page, longest playtime first
+     */
+    public @NotNull CompletableFuture<List<WakaRank>> top(int page, int pageSize) {
+        long start = (long) (page - 1) * pageSize;
+
+        return read(() -> {
+            try (Jedis jedis = jedisPool.getResource()) {
+                List<Tuple> tuples = jedis.zrevrangeWithScores(KEY, start, start + pageSize - 1);
+
+                List<WakaRank> ranks = new ArrayList<>(tuples.size());
+                if (tuples.isEmpty()) {
+                    return ranks;
+                }
+
+                String[] members = tuples.stream().map(Tuple::getElement).toArray(String[]::new);
+                List<String> names = jedis.hmget(NAMES_KEY, members);
+
+                for (int index = 0; index < members.length; index++) {
+                    ranks.add(new WakaRank(
+                        UUID.fromString(members[index]),
+                        names.get(index),
+                        start + index + 1,
+                        (long) tuples.get(index).getScore()
+                    ));
+                }
+
+                return ranks;
+            }
+        });
+    }
+
+    /**
+     * @return the rank of a player, or null if the player is not on the leaderboard
+     */
+    public @NotNull CompletableFuture<WakaRank> rank(@NotNull UUID uniqueId) {
+        String member = uniqueId.toString();
+
+        return read(() -> {
+            try (Jedis jedis = jedisPool.getResource()) {
+                Pipeline pipeline = jedis.pipelined();
+
+                Response<Long> rank = pipeline.zrevrank(KEY, member);
+                Response<Double> score = pipeline.zscore(KEY, member);
+                Response<String> name = pipeline.hget(NAMES_KEY, member);
+
+                pipeline.sync();
+
+                if (rank.get() == null || score.get() == null) {
+                    return null;
+                }
+
+                return new WakaRank(uniqueId, name.get(), rank.get() + 1, score.get().longValue());
+            }
+        });
+    }
+
+    /**
+     * @return the amount of players on the leaderboard
+     */
+    public @NotNull CompletableFuture<Long> size() {
+        return read(() -> {
+            try (Jedis jedis = jedisPool.getResource()) {
+                return jedis.zcard(KEY);
+            }
+        });
+    }
+
+    /**
+     * Streams every player of the database into a new sorted set, pipelined in batches, and
+     * replaces the leaderboard with it. Only one rebuild runs at a time.
+     *
+     * @return the amount of players read from the database
+     */
+    public @NotNull CompletableFuture<Long> rebuild(@NotNull WakaDatabase wakaDatabase) {
+        if (!running.compareAndSet(false, true)) {
+            return CompletableFuture.failedFuture(new IllegalStateException("The leaderboard is already being rebuilt"));
+        }
+
+        long[] count = {0};
+
+        return onWriter(() -> {
+            try (Jedis jedis = jedisPool.getResource()) {
+                jedis.del(REBUILD_KEY, REBUILD_NAMES_KEY);
+            }
+
+            rebuilding = true;
+            updatedDuringRebuild.clear();
+        }).thenCompose(unused -> {
+            List<WakaPlayer> batch = new ArrayList<>(rebuildBatchSize);
+
+            return wakaDatabase.streamPlayers(wakaPlayer -> {
+                batch.add(wakaPlayer);
+                count[0]++;
+
+                if (batch.size() >= rebuildBatchSize) {
+                    writeBatch(new ArrayList<>(batch)).join();
+                    batch.clear();
+                }
+            }).thenCompose(streamed -> writeBatch(batch));
+        }).thenCompose(unused -> onWriter(() -> {
+            try (Jedis jedis = jedisPool.getResource()) {
+                if (jedis.exists(REBUILD_KEY)) {
+                    jedis.rename(REBUILD_KEY, KEY);
+                } else {
+                    jedis.del(KEY);
+                }
+
+                if (jedis.exists(REBUILD_NAMES_KEY)) {
+                    jedis.rename(REBUILD_NAMES_KEY, NAMES_KEY);
+                } else {
+                    jedis.del(NAMES_KEY);
+                }
+            }
+
+            rebuilding = false;
+            updatedDuringRebuild.clear();
+        })).whenComplete((unused, throwable) -> {
+            if (throwable == null) {
+                running.set(false);
+                return;
+            }
+
+            onWriter(() -> {
+                rebuilding = false;
+                updatedDuringRebuild.clear();
+
+                try (Jedis jedis = jedisPool.getResource()) {
+                    jedis.del(REBUILD_KEY, REBUILD_NAMES_KEY);
+                }
+            }).whenComplete((cleared, ignored) -> running.set(false));
+        }).thenApply(unused -> count[0]);
+    }
+
+    /**
+     * Rebuilds the leaderboard if it is still empty, such as on the first start.
+     */
+    public @NotNull CompletableFuture<Long> rebuildIfEmpty(@NotNull WakaDatabase wakaDatabase) {
+        return size().thenCompose(size -> size > 0 ? CompletableFuture.completedFuture(0L) : rebuild(wakaDatabase));
+    }
+
+    /**
+     * Writes the pending updates, up to the given timeout.
+     */
+    public void close(long timeout, @NotNull TimeUnit unit) {
+        reader.shutdown();
+        writer.shutdown();
+
+        try {
+            writer.awaitTermination(timeout, unit);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Sends an update in a single pipeline on the writer thread.
+     */
+    private void write(@NotNull Consumer<Pipeline> update) {
+        try {
+            writer.execute(() -> {
+                long start = System.nanoTime();
+
+                try (Jedis jedis = jedisPool.getResource()) {
+                    Pipeline pipeline = jedis.pipelined();
+
+                    update.accept(pipeline);
+
+                    pipeline.sync();
+                } catch (Exception exception) {
+                    updateTimer.recordError();
+
+                    logger.log(Level.WARNING, "Could not update the leaderboard", exception);
+                } finally {
+                    updateTimer.recordSince(start);
+                }
+            });
+        } catch (RejectedExecutionException ignored) {
+            // Shutting down, the next rebuild catches up
+        }
+    }
+
+    private @NotNull CompletableFuture<Void> writeBatch(@NotNull List<WakaPlayer> batch) {
+        if (batch.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return onWriter(() -> {
+            try (Jedis jedis = jedisPool.getResource()) {
+                Pipeline pipeline = jedis.pipelined();
+
+                for (WakaPlayer wakaPlayer : batch) {
+                    // Updated since the row was read, the set already has a newer value
+                    if (!updatedDuringRebuild.contains(wakaPlayer.getUniqueId())) {
+                        add(pipeline, REBUILD_KEY, REBUILD_NAMES_KEY, wakaPlayer);
+                    }
+                }
+
+                pipeline.sync();
+            }
+        });
+    }
+
+    /**
+     * Runs a task on the writer thread, after every update queued before it. Ends the
+     * rebuild state when it fails.
+     */
+    private @NotNull CompletableFuture<Void> onWriter(@NotNull Runnable runnable) {
+        try {
+            return CompletableFuture.runAsync(() -> {
+                try {
+                    runnable.run();
+                } catch (RuntimeException exception) {
+                    rebuilding = false;
+                    throw exception;
+                }
+            }, writer);
+        } catch (RejectedExecutionException exception) {
+            return CompletableFuture.failedFuture(exception);
+        }
+    }
+
+    private void add(@NotNull Pipeline pipeline, @NotNull String key, @NotNull String namesKey,
+                     @NotNull WakaPlayer wakaPlayer) {
+        String member = wakaPlayer.getUniqueId().toString();
+
+        pipeline.zadd(key, Math.max(0, wakaPlayer.getMeasureTime() - wakaPlayer.getCreated()), member);
+
+        if (wakaPlayer.getPlayerName() != null) {
+            pipeline.hset(namesKey, member, wakaPlayer.getPlayerName());
+        }
+    }
+
+    private <T> @NotNull CompletableFuture<T> read(@NotNull Supplier<@Nullable T> supplier) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long start = System.nanoTime();
+
+                try {
+                    return supplier.get();
+                } catch (RuntimeException exception) {
+                    readTimer.recordError();
+                    throw exception;
+                } finally {
+                    readTimer.recordSince(start);
+                }
+            }, reader);
+        } catch (RejectedExecutionException exception) {
+            return CompletableFuture.failedFuture(exception);
+        }
+    }
+}
@@ -25,64 +25,141 @@
 
 package com.teamdiluvian.wakacraft.listener;
 
-import com.teamdiluvian.wakacraft.persistent.SQLWakaDatabase;
-import lombok.RequiredArgsConstructor;
+import com.teamdiluvian.wakacraft.metrics.WakaHistogram;
+import com.teamdiluvian.wakacraft.metrics.WakaMetrics;
+import com.teamdiluvian.wakacraft.persistent.WakaDatabase;
+import com.teamdiluvian.wakacraft.persistent.executor.WakaExecutor;
+import com.teamdiluvian.wakacraft.persistent.journal.WakaJournal;
+import com.teamdiluvian.wakacraft.persistent.journal.WakaJournalRecord;
+import com.teamdiluvian.wakacraft.presence.RedisPresenceDispatcher;
+import com.teamdiluvian.wakacraft.session.WakaSession;
+import com.teamdiluvian.wakacraft.session.WakaSessionTracker;
 import net.md_5.bungee.api.connection.ProxiedPlayer;
 import net.md_5.bungee.api.event.*;
 import net.md_5.bungee.api.plugin.Listener;
 import net.md_5.bungee.event.EventHandler;
 import net.md_5.bungee.event.EventPriority;
-import redis.clients.jedis.Jedis;
-import redis.clients.jedis.JedisPool;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
+ * Opens a session when a player logs into the proxy and persists it when the player disconnects.
+ *
  * @author Luiz Otávio de Farias Corrêa
  * @since 21/09/2022
  */
-@RequiredArgsConstructor
 public class WakaHandler implements Listener {
 
-    private final SQLWakaDatabase wakaDatabase;
-    private final JedisPool jedisPool;
+    private static final String HELP = "Time spent handling proxy events on the event thread";
+
+    private final WakaDatabase wakaDatabase;
+    private final RedisPresenceDispatcher presenceDispatcher;
+    private final WakaJournal wakaJournal;
+    private final WakaSessionTracker sessionTracker;
+    private final Logger logger;
+
+    private final WakaHistogram loginTimer;
+    private final WakaHistogram switchTimer;
+    private final WakaHistogram disconnectTimer;
+
+    public WakaHandler(@NotNull WakaDatabase wakaDatabase, @NotNull RedisPresenceDispatcher presenceDispatcher,
+                       @NotNull WakaJournal wakaJournal, @NotNull WakaSessionTracker sessionTracker,
+                       @NotNull WakaMetrics metrics, @NotNull Logger logger) {
+        this.wakaDatabase = wakaDatabase;
+        this.presenceDispatcher = presenceDispatcher;
+        this.wakaJournal = wakaJournal;
+        this.sessionTracker = sessionTracker;
+        this.logger = logger;
+
+        loginTimer = metrics.histogram("wakacraft_event_seconds", HELP, "event", "login");
+        switchTimer = metrics.histogram("wakacraft_event_seconds", HELP, "event", "switch");
+        disconnectTimer = metrics.histogram("wakacraft_event_seconds", HELP, "event", "disconnect");
+    }
 
     @EventHandler(priority = EventPriority.LOWEST)
-    public void onPlayerConnect(ServerConnectedEvent event) {
+    public void onPlayerLogin(PostLoginEvent event) {
         ProxiedPlayer proxiedPlayer = event.getPlayer();
 
         if (!proxiedPlayer.hasPermission("wakacraft.use")) {
             return;
         }
 
-        wakaDatabase.loadPlayer(proxiedPlayer.getUniqueId(), proxiedPlayer.getName())
-            .whenComplete((player, throwable) -> {
-                try (Jedis jedis = jedisPool.getResource()) {
-                    jedis.sadd("wakacraft-current-players", proxiedPlayer.getName());
-                }
+        long start = System.nanoTime();
+        long time = System.currentTimeMillis();
+
+        sessionTracker.open(proxiedPlayer.getUniqueId(), proxiedPlayer.getName(), time);
+        presenceDispatcher.join(proxiedPlayer.getUniqueId());
+
+        long sequence = wakaJournal.append(
+            WakaJournalRecord.Type.CONNECT,
+            proxiedPlayer.getUniqueId(), proxiedPlayer.getName(),
+            time
+        );
 
-                if (throwable != null) {
-                    throwable.printStackTrace();
-                }
-            });
+        wakaJournal.confirmOnSuccess(
+            sequence,
+            wakaDatabase.loadPlayer(proxiedPlayer.getUniqueId(), proxiedPlayer.getName(), WakaExecutor.Priority.WRITE)
+        ).whenComplete((player, throwable) -> {
+            if (throwable != null) {
+                logger.log(Level.WARNING, "Could not load " + proxiedPlayer.getName(), throwable);
+            }
+        });
+
+        loginTimer.recordSince(start);
+    }
+
+    @EventHandler
+    public void onServerSwitch(ServerSwitchEvent event) {
+        ProxiedPlayer proxiedPlayer = event.getPlayer();
+
+        if (proxiedPlayer.getServer() == null) {
+            return;
+        }
+
+        long start = System.nanoTime();
+
+        // Only kept in memory, the session is written once on disconnect
+        sessionTracker.switchServer(
+            proxiedPlayer.getUniqueId(),
+            proxiedPlayer.getServer().getInfo().getName(),
+            System.currentTimeMillis()
+        );
+
+        switchTimer.recordSince(start);
     }
 
     @EventHandler(priority = EventPriority.HIGHEST)
-    public void onPlayerDisconnect(ServerDisconnectEvent event) {
+    public void onPlayerDisconnect(PlayerDisconnectEvent event) {
         ProxiedPlayer proxiedPlayer = event.getPlayer();
 
-        if (!proxiedPlayer.hasPermission("wakacraft.use")) {
+        long start = System.nanoTime();
+        long measureTime = System.currentTimeMillis();
+
+        WakaSession session = sessionTracker.close(proxiedPlayer.getUniqueId(), measureTime);
+        if (session == null) {
             return;
         }
 
-        wakaDatabase.savePlayer(proxiedPlayer.getUniqueId(), proxiedPlayer.getName(), System.currentTimeMillis())
-            .whenComplete((player, throwable) -> {
-                try (Jedis jedis = jedisPool.getResource()) {
-                    jedis.srem("wakacraft-current-players", proxiedPlayer.getName());
-                }
+        presenceDispatcher.leave(proxiedPlayer.getUniqueId());
+
+        long sequence = wakaJournal.append(
+            WakaJournalRecord.Type.DISCONNECT,
+            proxiedPlayer.getUniqueId(), proxiedPlayer.getName(),
+            measureTime
+        );
+
+        wakaJournal.confirmOnSuccess(
+            sequence,
+            wakaDatabase.savePlayer(proxiedPlayer.getUniqueId(), proxiedPlayer.getName(), measureTime)
+        ).whenComplete((player, throwable) -> {
+            if (throwable != null) {
+                logger.log(Level.WARNING, "Could not save " + proxiedPlayer.getName(), throwable);
+            }
+        });
 
-                if (throwable != null) {
-                    throwable.printStackTrace();
-                }
-            });
+        disconnectTimer.recordSince(start);
     }
 
 }
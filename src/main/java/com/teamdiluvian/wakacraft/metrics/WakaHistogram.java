@@ -0,0 +1,151 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Luiz Otávio
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.teamdiluvian.wakacraft.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with fixed, doubling buckets.
+ *
+ * @author TeamDiluvian
+ * @since 18/10/2026
+ */
+public class WakaHistogram {
+
+    // The first bucket holds up to 2^10 nanoseconds, the last bounded one up to 2^34
+    private static final int FIRST_SHIFT = 10;
+    private static final int BOUNDED_BUCKETS = 25;
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDED_BUCKETS + 1];
+    private final LongAdder sum = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    public WakaHistogram() {
+        for (int bucket = 0; bucket < buckets.length; bucket++) {
+            buckets[bucket] = new LongAdder();
+        }
+    }
+
+    /**
+     * @return the upper bound of a bucket in nanoseconds, {@link Long#MAX_VALUE} for the last one
+     */
+    public static long upperBound(int bucket) {
+        return bucket < BOUNDED_BUCKETS ? 1L << (FIRST_SHIFT + bucket) : Long.MAX_VALUE;
+    }
+
+    public static int bucketCount() {
+        return BOUNDED_BUCKETS + 1;
+    }
+
+    public void record(long nanos) {
+        int bucket = nanos <= 1 ? 0 : Math.max(0, 64 - Long.numberOfLeadingZeros(nanos - 1) - FIRST_SHIFT);
+
+        buckets[Math.min(bucket, BOUNDED_BUCKETS)].increment();
+        sum.add(Math.max(0, nanos));
+    }
+
+    /**
+     * Records the time elapsed since the given {@link System#nanoTime()}.
+     */
+    public void recordSince(long start) {
+        record(System.nanoTime() - start);
+    }
+
+    /**
+     * Records the time the given future takes to complete from the given start, counting failures apart.
+     *
+     * @return the given future
+     */
+    public <T> @NotNull CompletableFuture<T> recordSince(long start, @NotNull CompletableFuture<T> future) {
+        future.whenComplete((result, throwable) -> {
+            recordSince(start);
+
+            if (throwable != null) {
+                errors.increment();
+            }
+        });
+
+        return future;
+    }
+
+    public void recordError() {
+        errors.increment();
+    }
+
+    public long getCount(int bucket) {
+        return buckets[bucket].sum();
+    }
+
+    public long getCount() {
+        long count = 0;
+
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+
+        return count;
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    /**
+     * @return the upper bound, in nanoseconds, of the bucket holding the given quantile, or 0 if nothing was recorded
+     */
+    public long getQuantile(double quantile) {
+        long[] counts = new long[buckets.length];
+        long count = 0;
+
+        for (int bucket = 0; bucket < buckets.length; bucket++) {
+            counts[bucket] = buckets[bucket].sum();
+            count += counts[bucket];
+        }
+
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(quantile * count);
+        long seen = 0;
+
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+
+            if (seen >= rank) {
+                return upperBound(bucket);
+            }
+        }
+
+        return Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Luiz Otávio
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.teamdiluvian.wakacraft.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Registry of the plugin metrics, written in the Prometheus text format.
+ *
+ * @author TeamDiluvian
+ * @since 18/10/2026
+ */
+public class WakaMetrics {
+
+    private final Map<String, Family> families = new ConcurrentHashMap<>();
+
+    public @NotNull WakaHistogram histogram(@NotNull String name, @NotNull String help, @NotNull String... labels) {
+        return (WakaHistogram) family(name, help, "histogram")
+            .series.computeIfAbsent(labelsOf(labels), key -> new WakaHistogram());
+    }
+
+    public @NotNull LongAdder counter(@NotNull String name, @NotNull String help, @NotNull String... labels) {
+        LongAdder counter = new LongAdder();
+
+        register(name, help, "counter", counter::sum, labels);
+
+        return counter;
+    }
+
+    /**
+     * Registers a counter kept by another component, read whenever the metrics are written.
+     */
+    public void counter(@NotNull String name, @NotNull String help, @NotNull LongSupplier supplier, @NotNull String... labels) {
+        register(name, help, "counter", supplier, labels);
+    }
+
+    public void gauge(@NotNull String name, @NotNull String help, @NotNull LongSupplier supplier, @NotNull String... labels) {
+        register(name, help, "gauge", supplier, labels);
+    }
+
+    /**
+     * @return every histogram, by series name
+     */
+    public @NotNull Map<String, WakaHistogram> getHistograms() {
+        Map<String, WakaHistogram> histograms = new TreeMap<>();
+
+        families.forEach((name, family) -> family.series.forEach((labels, series) -> {
+            if (series instanceof WakaHistogram) {
+                histograms.put(name + labels, (WakaHistogram) series);
+            }
+        }));
+
+        return histograms;
+    }
+
+    /**
+     * @return the current value of every counter and gauge, by series name
+     */
+    public @NotNull Map<String, Long> getValues() {
+        Map<String, Long> values = new TreeMap<>();
+
+        families.forEach((name, family) -> family.series.forEach((labels, series) -> {
+            if (series instanceof LongSupplier) {
+                values.put(name + labels, ((LongSupplier) series).getAsLong());
+            }
+        }));
+
+        return values;
+    }
+
+    /**
+     * Writes every metric in the Prometheus text exposition format, latencies in seconds.
+     */
+    public void write(@NotNull Writer writer) throws IOException {
+        for (Map.Entry<String, Family> entry : new TreeMap<>(families).entrySet()) {
+            String name = entry.getKey();
+            Family family = entry.getValue();
+
+            writer.write("# HELP " + name + " " + family.help + "\n");
+            writer.write("# TYPE " + name + " " + family.type + "\n");
+
+            StringBuilder errors = new StringBuilder();
+
+            for (Map.Entry<String, Object> series : new TreeMap<>(family.series).entrySet()) {
+                String labels = series.getKey();
+
+                if (series.getValue() instanceof LongSupplier) {
+                    writer.write(name + labels + " " + ((LongSupplier) series.getValue()).getAsLong() + "\n");
+                    continue;
+                }
+
+                WakaHistogram histogram = (WakaHistogram) series.getValue();
+
+                long cumulative = 0;
+                for (int bucket = 0; bucket < WakaHistogram.bucketCount(); bucket++) {
+                    cumulative += histogram.getCount(bucket);
+
+                    long bound = WakaHistogram.upperBound(bucket);
+
+                    writer.write(name + "_bucket" + withLabel(labels, "le",
+                        bound == Long.MAX_VALUE ? "+Inf" : seconds(bound)) + " " + cumulative + "\n");
+                }
+
+                writer.write(name + "_sum" + labels + " " + seconds(histogram.getSum()) + "\n");
+                writer.write(name + "_count" + labels + " " + cumulative + "\n");
+
+                errors.append(name).append("_errors_total").append(labels).append(' ').append(histogram.getErrors()).append('\n');
+            }
+
+            if (errors.length() > 0) {
+                writer.write("# HELP " + name + "_errors_total Failures among " + name + "\n");
+                writer.write("# TYPE " + name + "_errors_total counter\n");
+                writer.write(errors.toString());
+            }
+        }
+    }
+
+    private void register(@NotNull String name, @NotNull String help, @NotNull String type,
+                          @NotNull LongSupplier supplier, @NotNull String... labels) {
+        family(name, help, type).series.putIfAbsent(labelsOf(labels), supplier);
+    }
+
+    private @NotNull Family family(@NotNull String name, @NotNull String help, @NotNull String type) {
+        Family family = families.computeIfAbsent(name, key -> new Family(help, type));
+
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException(name + " is already registered as a " + family.type);
+        }
+
+        return family;
+    }
+
+    private static @NotNull String labelsOf(@NotNull String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be given as name and value pairs");
+        }
+
+        if (labels.length == 0) {
+            return "";
+        }
+
+        StringBuilder builder = new StringBuilder("{");
+
+        for (int index = 0; index < labels.length; index += 2) {
+            if (index > 0) {
+                builder.append(',');
+            }
+
+            builder.append(labels[index]).append("=\"").append(labels[index + 1]).append('"');
+        }
+
+        return builder.append('}').toString();
+    }
+
+    private static @NotNull String withLabel(@NotNull String labels, @NotNull String name, @NotNull String value) {
+        String label = name + "=\"" + value + "\"";
+
+        return labels.isEmpty() ? "{" + label + "}" : labels.substring(0, labels.length() - 1) + "," + label + "}";
+    }
+
+    private static @NotNull String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+
+    private static class Family {
+
+        private final String help;
+        private final String type;
+
+        private final Map<String, Object> series = new ConcurrentHashMap<>();
+
+        private Family(@NotNull String help, @NotNull String type) {
+            this.help = help;
+            this.type = type;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Luiz Otávio
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.teamdiluvian.wakacraft.metrics;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the connection wait and usage times of the Hikari pools, labelled with the pool name.
+ *
+ * @author TeamDiluvian
+ * @since 18/10/2026
+ */
+@RequiredArgsConstructor
+public class WakaPoolMetrics implements MetricsTrackerFactory {
+
+    private final WakaMetrics metrics;
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        WakaHistogram acquired = metrics.histogram(
+            "wakacraft_pool_acquire_seconds", "Time spent waiting for a connection", "pool", poolName
+        );
+        WakaHistogram usage = metrics.histogram(
+            "wakacraft_pool_usage_seconds", "Time a connection is held", "pool", poolName
+        );
+        LongAdder timeouts = metrics.counter(
+            "wakacraft_pool_timeouts_total", "Connection requests that timed out", "pool", poolName
+        );
+
+        metrics.gauge("wakacraft_pool_active_connections", "Connections in use", poolStats::getActiveConnections, "pool", poolName);
+        metrics.gauge("wakacraft_pool_idle_connections", "Idle connections", poolStats::getIdleConnections, "pool", poolName);
+        metrics.gauge("wakacraft_pool_pending_threads", "Threads waiting for a connection", poolStats::getPendingThreads, "pool", poolName);
+
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquired.record(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                usage.record(TimeUnit.MILLISECONDS.toNanos(elapsedBorrowedMillis));
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+}
@@ -52,7 +52,18 @@ public class WakaPlayer {
     private long created;
 
     public String getFormatted(long measure) {
-        long millis = (measure - created) / 1000;
+        return format(measure - created);
+    }
+
+    public String getFormatted() {
+        return getFormatted(measureTime);
+    }
+
+    /**
+     * Formats a duration in milliseconds as days, hours, minutes and seconds.
+     */
+    public static String format(long duration) {
+        long millis = duration / 1000;
 
         StringBuilder builder = new StringBuilder();
 
@@ -78,8 +89,4 @@ public class WakaPlayer {
         return builder.toString();
     }
 
-    public String getFormatted() {
-        return getFormatted(measureTime);
-    }
-
 }
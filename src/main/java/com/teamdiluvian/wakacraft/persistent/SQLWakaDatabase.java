@@ -25,9 +25,26 @@
 
 package com.teamdiluvian.wakacraft.persistent;
 
+import com.teamdiluvian.wakacraft.leaderboard.RedisWakaLeaderboard;
+import com.teamdiluvian.wakacraft.metrics.WakaHistogram;
+import com.teamdiluvian.wakacraft.metrics.WakaMetrics;
+import com.teamdiluvian.wakacraft.model.WakaHistory;
 import com.teamdiluvian.wakacraft.model.WakaPlayer;
+import com.teamdiluvian.wakacraft.persistent.cache.RedisWakaSnapshot;
+import com.teamdiluvian.wakacraft.persistent.cache.WakaDeltaAccumulator;
+import com.teamdiluvian.wakacraft.persistent.cache.WakaNameIndex;
+import com.teamdiluvian.wakacraft.persistent.cache.WakaPlayerCache;
+import com.teamdiluvian.wakacraft.persistent.cache.WriteBehindWakaCache;
 import com.teamdiluvian.wakacraft.persistent.connector.HikariWakaConnector;
+import com.teamdiluvian.wakacraft.persistent.connector.WakaCircuitBreaker;
+import com.teamdiluvian.wakacraft.persistent.connector.WakaCircuitOpenException;
+import com.teamdiluvian.wakacraft.persistent.executor.WakaExecutor;
+import com.teamdiluvian.wakacraft.persistent.migration.WakaBinaryIdMigration;
+import com.teamdiluvian.wakacraft.persistent.migration.WakaMigrationRunner;
+import com.teamdiluvian.wakacraft.persistent.migration.WakaNameIndexMigration;
+import com.teamdiluvian.wakacraft.persistent.shard.WakaShards;
 import com.teamdiluvian.wakacraft.util.TextReader;
+import com.teamdiluvian.wakacraft.util.UniqueIds;
 import me.saiintbrisson.minecraft.command.annotation.Command;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -36,43 +53,130 @@ import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
 import java.sql.Statement;
-import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 /**
  * @author Luiz Otávio de Farias Corrêa
  * @since 03/09/2022
  */
-public class SQLWakaDatabase {
+public class SQLWakaDatabase implements WakaDatabase {
 
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    // MySQL errors of partition changes another proxy already made
+    private static final int ER_RANGE_NOT_INCREASING = 1493;
+    private static final int ER_DROP_PARTITION_NON_EXISTENT = 1507;
+    private static final int ER_SAME_NAME_PARTITION = 1517;
+
+    // The first shard, which also holds the name routes when there are several
     private final HikariWakaConnector connector;
+    private final List<HikariWakaConnector> shards;
+    private final boolean replicated;
 
-    private final ExecutorService executorService;
+    private final WakaExecutor executorService;
     private final TextReader textReader;
+    private final Logger logger;
+
+    private final WriteBehindWakaCache writeBehindCache;
+    private final WakaNameIndex nameIndex;
+    private final WakaPlayerCache playerCache;
+    private final WakaDeltaAccumulator<String> serverTimeAccumulator;
+    private final WakaDeltaAccumulator<Integer> hourlyAccumulator;
+    private final boolean mysql;
+    private final boolean multiQueries;
+    private final int hourlyRetention;
+    private final int dailyRetention;
+    private final int checkpointChunkSize;
+    private final int lookupChunkSize;
+    private final long replicaLagNanos;
+
+    private final List<WakaChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
+    // The last day the expired days were deleted on
+    private final AtomicLong purgedDay = new AtomicLong(Long.MIN_VALUE);
+
+    // Loads running right now, by unique id or lower case name
+    private final Map<WakaExecutor.Priority, Map<Object, CompletableFuture<WakaPlayer>>> inFlightLoads =
+        new ConcurrentHashMap<>();
+    private final LongAdder coalescedLoads = new LongAdder();
+
+    // Players written by this proxy, by the time of the write, read from the primary until the replica caught up
+    private final Map<UUID, Long> recentWrites = new ConcurrentHashMap<>();
+
+    private final Map<Operation, WakaHistogram> timers = new EnumMap<>(Operation.class);
+    private final WakaHistogram queueTimer;
+
+    private volatile RedisWakaSnapshot snapshot;
+    private volatile RedisWakaLeaderboard leaderboard;
 
     public SQLWakaDatabase(@NotNull HikariWakaConnector connector) {
-        this.connector = connector;
+        this(Collections.singletonList(connector));
+    }
 
-        String properties = connector.getProperties()
-            .getProperty("maximumPoolSize");
+    /**
+     * Spreads the players over the given shards by a hash of their unique id, see {@link WakaShards}.
+     * Every shard is migrated, and the first one also maps names to unique ids when there are several.
+     * The executor gets as many threads as there are connections in all the pools.
+     */
+    public SQLWakaDatabase(@NotNull List<HikariWakaConnector> shards) {
+        this(shards, new WakaMetrics(), Logger.getLogger("Wakacraft"));
+    }
 
-        if (properties == null) {
-            properties = "2";
-        }
+    /**
+     * Creates the database, registering the timings of its operations, the state of its executor
+     * and the efficiency of its caches in the given metrics.
+     */
+    public SQLWakaDatabase(@NotNull List<HikariWakaConnector> shards, @NotNull WakaMetrics metrics, @NotNull Logger logger) {
+        this.logger = logger;
+        this.shards = new ArrayList<>(shards);
+        this.connector = shards.get(0);
 
-        executorService = Executors.newFixedThreadPool(
-            Integer.parseInt(properties),
-            runnable -> {
-                Thread thread = new Thread(runnable);
+        replicated = shards.stream().anyMatch(HikariWakaConnector::hasReplica);
 
-                thread.setName("Wakacraft-Thread");
+        // One thread or permit per pooled connection, across every shard
+        int threads = 0;
+        for (HikariWakaConnector shard : shards) {
+            threads += shard.getMaximumPoolSize();
+        }
 
-                return thread;
-            }
+        executorService = new WakaExecutor(
+            WakaExecutor.Mode.valueOf(
+                connector.getProperties().getProperty("wakacraft.executor", "fixed").toUpperCase(Locale.ROOT)
+            ),
+            threads,
+            Integer.parseInt(connector.getProperties().getProperty("wakacraft.queue.capacity", "1000")),
+            Integer.parseInt(connector.getProperties().getProperty("wakacraft.queue.readCapacity", "250")),
+            logger
         );
 
         textReader = new TextReader();
@@ -82,141 +186,1908 @@ public class SQLWakaDatabase {
             throw new RuntimeException(e);
         }
 
-        try (Connection connection = connector.createConnection()) {
-            Statement statement = connection.createStatement();
+        boolean mysql = false;
 
-            statement.execute(
-                textReader.getSql("create_wakacraft_table")
-            );
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+        for (HikariWakaConnector shard : shards) {
+            try (Connection connection = shard.createConnection()) {
+                // Partitioning, result set streaming and the migration lock are only used on MySQL
+                String product = connection.getMetaData().getDatabaseProductName();
+                mysql = product.contains("MySQL") || product.contains("MariaDB");
+
+                new WakaMigrationRunner(
+                    textReader, mysql,
+                    Integer.parseInt(connector.getProperties().getProperty("wakacraft.migration.lockTimeout", "600")),
+                    logger
+                )
+                    .register(new WakaNameIndexMigration(textReader))
+                    .register(new WakaBinaryIdMigration(
+                        textReader,
+                        Integer.parseInt(connector.getProperties().getProperty("wakacraft.migration.chunkSize", "1000"))
+                    ))
+                    .migrate(connection);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        this.mysql = mysql;
+
+        // Lets a join insert and read a player in a single round trip
+        multiQueries = mysql && shards.stream().allMatch(shard -> Boolean.parseBoolean(
+            shard.getProperties().getProperty("dataSource.allowMultiQueries")
+        ));
+
+        if (isSharded()) {
+            try (Connection connection = connector.createConnection()) {
+                connection.createStatement().execute(textReader.getSql("create_wakacraft_route_table"));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        Properties connectorProperties = connector.getProperties();
+
+        writeBehindCache = new WriteBehindWakaCache(
+            this,
+            Long.parseLong(connectorProperties.getProperty("wakacraft.writeBehind.flushInterval", "5000")),
+            Integer.parseInt(connectorProperties.getProperty("wakacraft.writeBehind.batchSize", "500")),
+            logger
+        );
+
+        nameIndex = new WakaNameIndex(
+            Integer.parseInt(connectorProperties.getProperty("wakacraft.nameIndex.size", "10000"))
+        );
+
+        playerCache = new WakaPlayerCache(
+            nameIndex,
+            Integer.parseInt(connectorProperties.getProperty("wakacraft.playerCache.size", "10000")),
+            Long.parseLong(connectorProperties.getProperty("wakacraft.playerCache.expireAfter", "300000")),
+            TimeUnit.MILLISECONDS
+        );
+
+        serverTimeAccumulator = new WakaDeltaAccumulator<>(
+            "ServerTime",
+            this::addServerTimes,
+            Long.parseLong(connectorProperties.getProperty("wakacraft.serverTime.flushInterval", "60000")),
+            Integer.parseInt(connectorProperties.getProperty("wakacraft.writeBehind.batchSize", "500")),
+            logger
+        );
+
+        hourlyAccumulator = new WakaDeltaAccumulator<>(
+            "History",
+            this::addHourlyTimes,
+            Long.parseLong(connectorProperties.getProperty("wakacraft.serverTime.flushInterval", "60000")),
+            Integer.parseInt(connectorProperties.getProperty("wakacraft.writeBehind.batchSize", "500")),
+            logger
+        );
+
+        hourlyRetention = Integer.parseInt(connectorProperties.getProperty("wakacraft.history.hourlyRetention", "14"));
+        dailyRetention = Integer.parseInt(connectorProperties.getProperty("wakacraft.history.dailyRetention", "35"));
+
+        checkpointChunkSize = Integer.parseInt(connectorProperties.getProperty("wakacraft.checkpoint.chunkSize", "500"));
+        lookupChunkSize = Integer.parseInt(connectorProperties.getProperty("wakacraft.lookup.chunkSize", "500"));
+        replicaLagNanos = TimeUnit.MILLISECONDS.toNanos(
+            Long.parseLong(connectorProperties.getProperty("wakacraft.replica.maxLag", "5000"))
+        );
+
+        for (Operation operation : Operation.values()) {
+            timers.put(operation, metrics.histogram(
+                "wakacraft_db_operation_seconds", "Time spent running database operations",
+                "operation", operation.name().toLowerCase(Locale.ROOT)
+            ));
         }
+
+        queueTimer = metrics.histogram("wakacraft_db_queue_seconds", "Time database operations wait for a thread");
+
+        metrics.gauge("wakacraft_db_queue_depth", "Database operations waiting for a thread", executorService::getQueueDepth);
+        metrics.gauge("wakacraft_db_active_operations", "Database operations running", executorService::getActiveCount);
+        metrics.counter("wakacraft_db_rejected_total", "Database operations rejected by the full queue",
+            executorService::getRejectedReads, "priority", "read");
+        metrics.counter("wakacraft_db_rejected_total", "Database operations rejected by the full queue",
+            executorService::getRejectedWrites, "priority", "write");
+        metrics.gauge("wakacraft_write_behind_pending", "Saves waiting in the write-behind cache", writeBehindCache::size);
+        metrics.counter("wakacraft_player_cache_requests_total", "Player cache lookups", playerCache::getHits, "result", "hit");
+        metrics.counter("wakacraft_player_cache_requests_total", "Player cache lookups", playerCache::getMisses, "result", "miss");
+        metrics.counter("wakacraft_coalesced_loads_total", "Loads served by a query already running", coalescedLoads::sum);
     }
 
     public @NotNull HikariWakaConnector getConnector() {
         return connector;
     }
 
+    public @NotNull List<HikariWakaConnector> getShards() {
+        return Collections.unmodifiableList(shards);
+    }
+
+    @Override
+    public @NotNull WakaCircuitBreaker getCircuitBreaker() {
+        return connector.getCircuitBreaker();
+    }
+
+    @Override
+    public @Nullable WakaCircuitBreaker getReplicaCircuitBreaker() {
+        return connector.getReplicaCircuitBreaker();
+    }
+
+    /**
+     * Loads a player, creating it when there is no row yet. Both statements run in the
+     * same task and on the same connection, so a first join never waits on another task
+     * of this executor.
+     * <p>
+     * Names are resolved to unique ids through the name index whenever possible, and
+     * loading a player by unique id and name keeps the index and the stored name current.
+     * Cached players are returned without touching the database, unless they were renamed.
+     * <p>
+     * This is a read, so it is the first to be rejected when the database falls behind.
+     * While the database cannot be reached, players are read from the Redis snapshot instead.
+     * <p>
+     * Concurrent loads of the same player share a single query, except that a load with the write
+     * priority never waits on a read. When there is a replica, players
+     * found there under the same name are loaded without touching the primary.
+     */
+    @Override
     public @NotNull CompletableFuture<WakaPlayer> loadPlayer(@Nullable UUID unique, @Nullable String name) {
+        return loadPlayer(unique, name, WakaExecutor.Priority.READ);
+    }
+
+    /**
+     * Loads a player with the given priority. Joins load as writes, since they may create
+     * the row every later save relies on.
+     */
+    @Override
+    public @NotNull CompletableFuture<WakaPlayer> loadPlayer(@Nullable UUID unique, @Nullable String name,
+                                                             @NotNull WakaExecutor.Priority priority) {
+        WakaPlayer cachedPlayer = unique != null ? playerCache.getIfPresent(unique) :
+            name != null ? playerCache.getIfPresent(name) : null;
+
+        if (cachedPlayer != null && (unique == null || name == null || name.equals(cachedPlayer.getPlayerName()))) {
+            return CompletableFuture.completedFuture(cachedPlayer);
+        }
+
+        Object key = unique != null ? unique : name != null ? name.toLowerCase(Locale.ROOT) : null;
+        if (key == null) {
+            return queryPlayer(null, null, priority, true);
+        }
+
+        CompletableFuture<WakaPlayer> future = new CompletableFuture<>();
+
+        Map<Object, CompletableFuture<WakaPlayer>> loads = inFlightLoads(priority);
+
+        // A read may share a write already running, a write would lose its priority behind a read
+        CompletableFuture<WakaPlayer> inFlight = priority == WakaExecutor.Priority.READ ?
+            inFlightLoads(WakaExecutor.Priority.WRITE).get(key) : null;
+        if (inFlight == null) {
+            inFlight = loads.putIfAbsent(key, future);
+        }
+
+        if (inFlight != null) {
+            coalescedLoads.increment();
+
+            // A copy, so one caller cannot complete the load of the others
+            return inFlight.copy();
+        }
+
+        queryPlayer(unique, name, priority, true).whenComplete((wakaPlayer, throwable) -> {
+            // Removed first, later loads find the player in the cache instead
+            loads.remove(key, future);
+
+            if (throwable != null) {
+                future.completeExceptionally(throwable);
+            } else {
+                future.complete(wakaPlayer);
+            }
+        });
+
+        return future.copy();
+    }
+
+    /**
+     * Looks a player up by name like {@link #loadPlayer(UUID, String)}, completing with null
+     * rather than creating the player when the name is unknown.
+     */
+    @Override
+    public @NotNull CompletableFuture<WakaPlayer> findPlayer(@NotNull String name) {
+        WakaPlayer cachedPlayer = playerCache.getIfPresent(name);
+        if (cachedPlayer != null) {
+            return CompletableFuture.completedFuture(cachedPlayer);
+        }
+
+        return queryPlayer(null, name, WakaExecutor.Priority.READ, false);
+    }
+
+    private @NotNull Map<Object, CompletableFuture<WakaPlayer>> inFlightLoads(@NotNull WakaExecutor.Priority priority) {
+        return inFlightLoads.computeIfAbsent(priority, key -> new ConcurrentHashMap<>());
+    }
+
+    private @NotNull CompletableFuture<WakaPlayer> queryPlayer(@Nullable UUID unique, @Nullable String name,
+                                                               @NotNull WakaExecutor.Priority priority, boolean create) {
         if (isDisconnected()) {
             return CompletableFuture.failedFuture(new UnsupportedOperationException("Connection is not available"));
         }
 
-        String query = unique != null ? textReader.getSql("retrieve_wakacraft_by_id") :
-            textReader.getSql("retrieve_wakacraft_by_name");
+        CompletableFuture<WakaPlayer> future = supplyAsync(unique != null ? shardOf(unique) : connector, priority, Operation.LOAD_PLAYER, () -> {
+            try {
+                WakaPlayer wakaPlayer = retrieveOrInsertPlayer(unique, name, true, create);
 
-        return CompletableFuture.supplyAsync(() -> {
-            UUID uuid = unique != null ? unique : UUID.nameUUIDFromBytes(
-                String.format("OfflinePlayer:%s", name).getBytes()
-            );
+                return wakaPlayer != null ? cachePlayer(wakaPlayer) : null;
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
 
-            try (Connection connection = connector.createConnection()) {
-                PreparedStatement preparedStatement = connection.prepareStatement(query);
+        RedisWakaSnapshot snapshot = this.snapshot;
+        if (snapshot == null) {
+            return future;
+        }
+
+        return future.handle((wakaPlayer, throwable) -> {
+            if (throwable == null) {
+                return CompletableFuture.completedFuture(wakaPlayer);
+            }
 
-                preparedStatement.setString(1, unique != null ? unique.toString() : name);
+            if (!WakaCircuitBreaker.isConnectionFailure(throwable)) {
+                return CompletableFuture.<WakaPlayer>failedFuture(throwable);
+            }
 
-                ResultSet resultSet = preparedStatement.executeQuery();
-                if (!resultSet.next()) {
-                    return createPlayer(uuid, name, System.currentTimeMillis()).join();
+            return snapshot.find(unique, name).thenApply(snapshotPlayer -> {
+                if (snapshotPlayer == null) {
+                    throw new CompletionException(throwable);
                 }
 
-                Instant created_at = resultSet.getTimestamp("created_at")
-                    .toInstant();
+                return snapshotPlayer;
+            });
+        }).thenCompose(Function.identity());
+    }
+
+    /**
+     * Only a login knows the current name of a player, so a differing name is only stored when the
+     * unique id was given. Players looked up by name keep their stored name.
+     *
+     * @param useIndex whether the name may be resolved through the name index
+     * @param create whether a missing player is inserted
+     * @return the player, or null if it is missing or the name led to a player known by another name by now
+     */
+    private @Nullable WakaPlayer retrieveOrInsertPlayer(@Nullable UUID unique, @Nullable String name,
+                                                        boolean useIndex, boolean create) throws Exception {
+        boolean login = unique != null;
+
+        UUID uniqueId = login ? unique : useIndex && name != null ? nameIndex.get(name) : null;
+
+        // Players of other shards can only be found by name through the routes
+        if (uniqueId == null && name != null && isSharded()) {
+            uniqueId = retrieveRoute(name);
+        }
+
+        WakaPlayer replicaPlayer = retrieveFromReplica(uniqueId, name, login);
+        if (replicaPlayer != null) {
+            return replicaPlayer;
+        }
+
+        // Unknown names get the offline unique id, which tells the shard to create them on
+        if (uniqueId == null && isSharded()) {
+            uniqueId = offlineUniqueId(name);
+        }
+
+        try (Connection connection = (uniqueId != null ? shardOf(uniqueId) : connector).createConnection()) {
+            if (login && multiQueries) {
+                return retrieveOrInsertPlayer(connection, uniqueId, name, System.currentTimeMillis());
+            }
+
+            WakaPlayer wakaPlayer = uniqueId != null ? retrievePlayer(connection, uniqueId, login ? name : null) :
+                retrievePlayer(connection, name);
 
-                return WakaPlayer.of(
-                    unique != null ? unique : uuid, name,
-                    resultSet.getLong("measure_time"),
-                    created_at.toEpochMilli()
+            // The index still held the previous owner of a name that changed hands
+            if (!login && wakaPlayer != null && name != null && !name.equalsIgnoreCase(wakaPlayer.getPlayerName())) {
+                nameIndex.remove(name, wakaPlayer.getUniqueId());
+
+                return useIndex ? retrieveOrInsertPlayer(null, name, false, create) : null;
+            }
+
+            if (wakaPlayer == null && create) {
+                wakaPlayer = insertPlayer(
+                    connection, uniqueId != null ? uniqueId : offlineUniqueId(name),
+                    name, System.currentTimeMillis()
                 );
+            }
+
+            return wakaPlayer;
+        }
+    }
+
+    /**
+     * Loads several players by unique id with one {@code IN} query per {@code wakacraft.lookup.chunkSize}
+     * players, the chunks running in parallel. Cached players are not queried, and unlike
+     * {@link #loadPlayer(UUID, String)} missing players are left out rather than created.
+     *
+     * @return the players found, by unique id
+     */
+    @Override
+    public @NotNull CompletableFuture<Map<UUID, WakaPlayer>> loadPlayers(@NotNull Collection<UUID> uniqueIds) {
+        Map<UUID, WakaPlayer> wakaPlayers = new ConcurrentHashMap<>();
+        List<UUID> missing = new ArrayList<>();
+
+        for (UUID uniqueId : new LinkedHashSet<>(uniqueIds)) {
+            WakaPlayer cachedPlayer = playerCache.getIfPresent(uniqueId);
+
+            if (cachedPlayer != null) {
+                wakaPlayers.put(uniqueId, cachedPlayer);
+            } else {
+                missing.add(uniqueId);
+            }
+        }
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        groupByShard(missing).forEach((shard, shardIds) -> futures.add(loadChunks(
+            shard, "retrieve_wakacraft_by_ids", shardIds, wakaPlayer -> wakaPlayers.put(wakaPlayer.getUniqueId(), wakaPlayer)
+        )));
+
+        return allOf(futures).thenApply(unused -> wakaPlayers);
+    }
+
+    /**
+     * Loads several players by name, the same way as {@link #loadPlayers(Collection)}.
+     *
+     * @return the players found, by the requested name
+     */
+    @Override
+    public @NotNull CompletableFuture<Map<String, WakaPlayer>> loadPlayersByName(@NotNull Collection<String> names) {
+        Map<String, WakaPlayer> wakaPlayers = new ConcurrentHashMap<>();
+        Map<String, String> missing = new LinkedHashMap<>();
+
+        for (String name : names) {
+            WakaPlayer cachedPlayer = playerCache.getIfPresent(name);
+
+            if (cachedPlayer != null) {
+                wakaPlayers.put(name, cachedPlayer);
+            } else {
+                missing.putIfAbsent(name.toLowerCase(Locale.ROOT), name);
+            }
+        }
+
+        Consumer<WakaPlayer> consumer = wakaPlayer -> {
+            // Names are compared without case, like the column collation does
+            String name = wakaPlayer.getPlayerName() == null ? null :
+                missing.get(wakaPlayer.getPlayerName().toLowerCase(Locale.ROOT));
+
+            if (name != null) {
+                wakaPlayers.put(name, wakaPlayer);
+            }
+        };
+
+        if (!isSharded()) {
+            return loadChunks(connector, "retrieve_wakacraft_by_names", new ArrayList<>(missing.values()), consumer)
+                .thenApply(unused -> wakaPlayers);
+        }
+
+        if (missing.isEmpty()) {
+            return CompletableFuture.completedFuture(wakaPlayers);
+        }
+
+        // The names are resolved through the routes first, then the players are read from their shards
+        return supplyAsync(connector, WakaExecutor.Priority.READ, Operation.LOAD_PLAYERS, () -> {
+            try (Connection connection = connector.createConnection()) {
+                return retrieveRoutes(connection, missing.values());
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
-        }, executorService);
+        }).thenCompose(uniqueIds -> loadPlayers(uniqueIds)).thenApply(players -> {
+            players.values().forEach(consumer);
+
+            return wakaPlayers;
+        });
     }
 
+    /**
+     * Saves the measure time of a player. Saves by unique id go through the write-behind cache
+     * and are written in batches, saves by name are resolved to a unique id and written immediately.
+     */
+    @Override
     public @NotNull CompletableFuture<Void> savePlayer(@Nullable UUID uniqueId, @Nullable String name, long measureTime) {
         if (isDisconnected()) {
             return CompletableFuture.failedFuture(new UnsupportedOperationException("Connection is not available"));
         }
 
-        String query = uniqueId != null ? textReader.getSql("update_wakacraft_data_by_id") :
-            textReader.getSql("update_wakacraft_data_by_name");
+        if (uniqueId != null) {
+            cacheMeasureTime(uniqueId, measureTime);
 
-        return CompletableFuture.runAsync(() -> {
-            try (Connection connection = connector.createConnection()) {
-                PreparedStatement preparedStatement = connection.prepareStatement(query);
+            return writeBehindCache.enqueue(uniqueId, measureTime);
+        }
 
-                preparedStatement.setLong(1, measureTime);
+        String query = textReader.getSql("update_wakacraft_data_by_id");
 
-                preparedStatement.setString(
-                    2,
-                    uniqueId != null ? uniqueId.toString() : name
-                );
+        return discardPending(null, name, Operation.SAVE_PLAYER, resolved -> runAsync(shardOf(resolved), Operation.SAVE_PLAYER, () -> {
+            try {
+                try (Connection connection = shardOf(resolved).createConnection()) {
+                    PreparedStatement preparedStatement = connection.prepareStatement(query);
+
+                    preparedStatement.setLong(1, measureTime);
+                    preparedStatement.setBytes(2, UniqueIds.toBytes(resolved));
+
+                    preparedStatement.executeUpdate();
 
-                preparedStatement.executeUpdate();
+                    markWritten(Collections.singleton(resolved));
+
+                    cacheMeasureTime(resolved, measureTime);
+
+                    updateLeaderboard(connection, Collections.singletonMap(resolved, measureTime));
+                }
+
+                notifyChanged(Collections.singleton(resolved));
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
-        }, executorService);
+        }));
+    }
+
+    /**
+     * Writes the measure time of several players in a single JDBC batch per shard, on one connection.
+     */
+    @Override
+    public @NotNull CompletableFuture<Void> savePlayers(@NotNull Map<UUID, Long> measureTimes) {
+        return savePlayers(measureTimes, false);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> savePlayersIfNewer(@NotNull Map<UUID, Long> measureTimes) {
+        return savePlayers(measureTimes, true);
+    }
+
+    private @NotNull CompletableFuture<Void> savePlayers(@NotNull Map<UUID, Long> measureTimes, boolean newerOnly) {
+        if (isDisconnected()) {
+            return CompletableFuture.failedFuture(new UnsupportedOperationException("Connection is not available"));
+        }
+
+        String query = textReader.getSql(newerOnly ? "update_wakacraft_data_if_newer" : "update_wakacraft_data_by_id");
+
+        return runOnShards(measureTimes.keySet(), Operation.SAVE_PLAYERS, (connection, uniqueIds) -> {
+            PreparedStatement preparedStatement = connection.prepareStatement(query);
+
+            for (UUID uniqueId : uniqueIds) {
+                preparedStatement.setLong(1, measureTimes.get(uniqueId));
+                preparedStatement.setBytes(2, UniqueIds.toBytes(uniqueId));
+
+                preparedStatement.addBatch();
+            }
+
+            preparedStatement.executeBatch();
+
+            markWritten(uniqueIds);
+
+            Map<UUID, Long> written = new HashMap<>();
+            uniqueIds.forEach(uniqueId -> {
+                long measureTime = measureTimes.get(uniqueId);
+
+                // A write skipped for being older leaves the cached time, uncached players are read back anyway
+                WakaPlayer cachedPlayer = newerOnly ? playerCache.getIfPresent(uniqueId) : null;
+
+                written.put(uniqueId, cachedPlayer != null ? Math.max(measureTime, cachedPlayer.getMeasureTime()) : measureTime);
+            });
+
+            updateLeaderboard(connection, written);
+
+            notifyChanged(uniqueIds);
+        });
+    }
+
+    /**
+     * Upserts the measure time of every given player with multi-row statements of up to
+     * {@code wakacraft.checkpoint.chunkSize} rows. Full chunks share one prepared statement
+     * and are sent as a single JDBC batch, the remainder gets a statement of its own. Each
+     * shard is written by a task of its own.
+     *
+     * @param players the names of the players to write, by unique id
+     */
+    @Override
+    public @NotNull CompletableFuture<Void> checkpointPlayers(@NotNull Map<UUID, String> players, long measureTime) {
+        if (isDisconnected()) {
+            return CompletableFuture.failedFuture(new UnsupportedOperationException("Connection is not available"));
+        }
+
+        if (players.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        String query = textReader.getSql("checkpoint_wakacraft_data");
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        groupByShard(players.keySet()).forEach((shard, uniqueIds) -> {
+            // Buffered in the write-behind cache until the shard is back
+            if (shard.getCircuitBreaker().isOpen()) {
+                uniqueIds.forEach(uniqueId -> savePlayer(uniqueId, null, measureTime));
+
+                return;
+            }
+
+            futures.add(runAsync(shard, Operation.CHECKPOINT_PLAYERS, () -> {
+                int fullChunks = uniqueIds.size() / checkpointChunkSize;
+                int remainder = uniqueIds.size() % checkpointChunkSize;
+
+                Iterator<UUID> iterator = uniqueIds.iterator();
+
+                try (Connection connection = shard.createConnection()) {
+                    if (fullChunks > 0) {
+                        PreparedStatement preparedStatement = connection.prepareStatement(
+                            String.format(query, valuesOf(checkpointChunkSize))
+                        );
+
+                        for (int chunk = 0; chunk < fullChunks; chunk++) {
+                            bindCheckpoint(preparedStatement, iterator, players, checkpointChunkSize, measureTime);
+
+                            preparedStatement.addBatch();
+                        }
+
+                        preparedStatement.executeBatch();
+                    }
+
+                    if (remainder > 0) {
+                        PreparedStatement preparedStatement = connection.prepareStatement(
+                            String.format(query, valuesOf(remainder))
+                        );
+
+                        bindCheckpoint(preparedStatement, iterator, players, remainder, measureTime);
+
+                        preparedStatement.executeUpdate();
+                    }
+
+                    markWritten(uniqueIds);
+
+                    Map<UUID, Long> written = new HashMap<>();
+                    uniqueIds.forEach(uniqueId -> written.put(uniqueId, measureTime));
+
+                    updateLeaderboard(connection, written);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }));
+        });
+
+        return allOf(futures);
     }
 
+    @Override
     public @NotNull CompletableFuture<Void> resetPlayer(@Nullable UUID uniqueId, @Nullable String name) {
         if (isDisconnected()) {
             return CompletableFuture.failedFuture(new UnsupportedOperationException("Connection is not available"));
         }
 
-        String query = uniqueId != null ? textReader.getSql("reset_wakacraft_data_by_id") :
-            textReader.getSql("reset_wakacraft_data_by_name");
+        String query = textReader.getSql("reset_wakacraft_data_by_id");
 
-        return CompletableFuture.runAsync(() -> {
-            try (Connection connection = connector.createConnection()) {
-                PreparedStatement preparedStatement = connection.prepareStatement(query);
+        return discardPending(uniqueId, name, Operation.RESET_PLAYER, resolved -> runAsync(shardOf(resolved), Operation.RESET_PLAYER, () -> {
+            try {
+                try (Connection connection = shardOf(resolved).createConnection()) {
+                    PreparedStatement preparedStatement = connection.prepareStatement(query);
 
-                preparedStatement.setLong(1, System.currentTimeMillis());
+                    preparedStatement.setLong(1, System.currentTimeMillis());
+                    preparedStatement.setBytes(2, UniqueIds.toBytes(resolved));
 
-                preparedStatement.setString(
-                    2,
-                    uniqueId != null ? uniqueId.toString() : name
-                );
+                    preparedStatement.executeUpdate();
+
+                    markWritten(Collections.singleton(resolved));
+
+                    playerCache.invalidate(resolved);
+
+                    RedisWakaSnapshot snapshot = this.snapshot;
+                    if (snapshot != null) {
+                        snapshot.remove(resolved);
+                    }
 
-                preparedStatement.executeUpdate();
+                    RedisWakaLeaderboard leaderboard = this.leaderboard;
+                    if (leaderboard != null) {
+                        leaderboard.reset(resolved);
+                    }
+                }
+
+                notifyChanged(Collections.singleton(resolved));
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
-        }, executorService);
+        }));
+    }
+
+    /**
+     * Resolves the player to overwrite and drops its pending save, running the write only once no
+     * batch holding the player is being written, since such a batch would land after it.
+     */
+    private @NotNull CompletableFuture<Void> discardPending(@Nullable UUID uniqueId, @Nullable String name,
+                                                            @NotNull Operation operation,
+                                                            @NotNull Function<UUID, CompletableFuture<Void>> write) {
+        CompletableFuture<UUID> resolved = uniqueId != null || name == null ? CompletableFuture.completedFuture(uniqueId) :
+            supplyAsync(connector, WakaExecutor.Priority.WRITE, operation, () -> {
+                try {
+                    return resolveUniqueId(name);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+
+        return resolved.thenCompose(resolvedId -> resolvedId == null ? CompletableFuture.<Void>completedFuture(null) :
+            writeBehindCache.discard(resolvedId).thenCompose(unused -> write.apply(resolvedId)));
     }
 
+    @Override
     public @NotNull CompletableFuture<WakaPlayer> createPlayer(@NotNull UUID uniqueId, @Nullable String name, long measureTime) {
         if (isDisconnected()) {
             return CompletableFuture.failedFuture(new UnsupportedOperationException("Connection is not available"));
         }
 
-        String query = textReader.getSql("create_wakacraft_data");
-        return CompletableFuture.supplyAsync(() -> {
-            try (Connection connection = connector.createConnection()) {
-                PreparedStatement preparedStatement = connection.prepareStatement(query);
+        return supplyAsync(shardOf(uniqueId), WakaExecutor.Priority.WRITE, Operation.CREATE_PLAYER, () -> {
+            try (Connection connection = shardOf(uniqueId).createConnection()) {
+                return insertPlayer(connection, uniqueId, name, measureTime);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    /**
+     * Inserts the given players in a single JDBC batch per shard, leaving the players that already exist untouched.
+     */
+    @Override
+    public @NotNull CompletableFuture<Void> createPlayers(@NotNull Collection<WakaPlayer> wakaPlayers) {
+        if (isDisconnected()) {
+            return CompletableFuture.failedFuture(new UnsupportedOperationException("Connection is not available"));
+        }
+
+        String query = textReader.getSql("create_wakacraft_data_if_absent");
+
+        Map<UUID, WakaPlayer> players = new LinkedHashMap<>();
+        for (WakaPlayer wakaPlayer : wakaPlayers) {
+            players.put(wakaPlayer.getUniqueId(), wakaPlayer);
+        }
+
+        return runOnShards(players.keySet(), Operation.CREATE_PLAYERS, (connection, uniqueIds) -> {
+            PreparedStatement preparedStatement = connection.prepareStatement(query);
+
+            for (UUID uniqueId : uniqueIds) {
+                WakaPlayer wakaPlayer = players.get(uniqueId);
+
+                preparedStatement.setBytes(1, UniqueIds.toBytes(uniqueId));
+                preparedStatement.setString(2, wakaPlayer.getPlayerName());
+                preparedStatement.setLong(3, wakaPlayer.getMeasureTime());
+
+                preparedStatement.addBatch();
+            }
+
+            preparedStatement.executeBatch();
+
+            markWritten(uniqueIds);
+
+            if (isSharded()) {
+                updateRoutes(uniqueIds.stream().map(players::get).collect(Collectors.toList()));
+            }
+        });
+    }
+
+    /**
+     * Adds time to the per server playtime of players in a single JDBC batch per shard. The upsert
+     * only adds to the stored value, so concurrent flushes from several proxies never conflict.
+     *
+     * @param batchId     the time is only added once per batch id, see {@link #addOnce}
+     * @param serverTimes the time to add, by player and then by server name
+     * @return the result of each shard, by the players it holds
+     */
+    public @NotNull Map<Collection<UUID>, CompletableFuture<Void>> addServerTimes(@NotNull UUID batchId,
+                                                                               @NotNull Map<UUID, Map<String, Long>> serverTimes) {
+        if (isDisconnected()) {
+            return Collections.singletonMap(
+                serverTimes.keySet(),
+                CompletableFuture.failedFuture(new UnsupportedOperationException("Connection is not available"))
+            );
+        }
 
-                preparedStatement.setString(1, uniqueId.toString());
+        String query = textReader.getSql("add_wakacraft_server_time");
 
-                preparedStatement.setString(2, name);
+        return runOnEachShard(serverTimes.keySet(), Operation.ADD_SERVER_TIMES, addOnce(batchId, (connection, uniqueIds) -> {
+            PreparedStatement preparedStatement = connection.prepareStatement(query);
 
-                preparedStatement.setLong(3, measureTime);
-                preparedStatement.setLong(4, measureTime);
+            for (UUID uniqueId : uniqueIds) {
+                for (Map.Entry<String, Long> serverTime : serverTimes.get(uniqueId).entrySet()) {
+                    preparedStatement.setBytes(1, UniqueIds.toBytes(uniqueId));
+                    preparedStatement.setString(2, serverTime.getKey());
+                    preparedStatement.setLong(3, serverTime.getValue());
 
-                preparedStatement.executeUpdate();
+                    preparedStatement.addBatch();
+                }
+            }
+
+            preparedStatement.executeBatch();
+
+            markWritten(uniqueIds);
+        }));
+    }
+
+    /**
+     * Loads the playtime of a player on every backend server, including the time not written yet.
+     *
+     * @return the playtime by server name, longest first
+     */
+    @Override
+    public @NotNull CompletableFuture<Map<String, Long>> loadServerTimes(@NotNull UUID uniqueId) {
+        if (isDisconnected()) {
+            return CompletableFuture.failedFuture(new UnsupportedOperationException("Connection is not available"));
+        }
+
+        String query = textReader.getSql("retrieve_wakacraft_server_times");
+
+        return supplyAsync(shardOf(uniqueId), WakaExecutor.Priority.READ, Operation.LOAD_SERVER_TIMES, () -> {
+            Map<String, Long> serverTimes = new HashMap<>();
+
+            try {
+                read(shardOf(uniqueId), Collections.singleton(uniqueId), connection -> {
+                    PreparedStatement preparedStatement = connection.prepareStatement(query);
 
-                return WakaPlayer.of(uniqueId, name, measureTime, System.currentTimeMillis());
+                    preparedStatement.setBytes(1, UniqueIds.toBytes(uniqueId));
+
+                    ResultSet resultSet = preparedStatement.executeQuery();
+                    while (resultSet.next()) {
+                        serverTimes.put(resultSet.getString("server_name"), resultSet.getLong("play_time"));
+                    }
+
+                    return null;
+                });
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
-        }, executorService);
+
+            serverTimeAccumulator.getPending(uniqueId)
+                .forEach((server, time) -> serverTimes.merge(server, time, Long::sum));
+
+            Map<String, Long> sorted = new LinkedHashMap<>();
+            serverTimes.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+
+            return sorted;
+        });
     }
 
-    public @NotNull ExecutorService getThreadFactory() {
-        return executorService;
+    /**
+     * Counts a stretch of time a player spent on a server, both in the per server playtime and
+     * in the hourly history. Stretches crossing an hour are split between the hourly buckets.
+     */
+    @Override
+    public void recordPlaytime(@NotNull UUID uniqueId, @NotNull String server, long from, long to) {
+        serverTimeAccumulator.add(uniqueId, server, to - from);
+
+        long start = from;
+        while (start < to) {
+            long hour = start / HOUR;
+            long end = Math.min(to, (hour + 1) * HOUR);
+
+            hourlyAccumulator.add(uniqueId, (int) hour, end - start);
+
+            start = end;
+        }
     }
 
-    private boolean isDisconnected() {
-        return !connector.isConnected();
+    /**
+     * Adds time to the hourly buckets of players in a single JDBC batch per shard.
+     *
+     * @param batchId     the time is only added once per batch id, see {@link #addOnce}
+     * @param hourlyTimes the time to add, by player and then by hours since the epoch
+     * @return the result of each shard, by the players it holds
+     */
+    public @NotNull Map<Collection<UUID>, CompletableFuture<Void>> addHourlyTimes(@NotNull UUID batchId,
+                                                                               @NotNull Map<UUID, Map<Integer, Long>> hourlyTimes) {
+        if (isDisconnected()) {
+            return Collections.singletonMap(
+                hourlyTimes.keySet(),
+                CompletableFuture.failedFuture(new UnsupportedOperationException("Connection is not available"))
+            );
+        }
+
+        String query = textReader.getSql("add_wakacraft_hourly_time");
+
+        return runOnEachShard(hourlyTimes.keySet(), Operation.ADD_HOURLY_TIMES, addOnce(batchId, (connection, uniqueIds) -> {
+            PreparedStatement preparedStatement = connection.prepareStatement(query);
+
+            for (UUID uniqueId : uniqueIds) {
+                for (Map.Entry<Integer, Long> hourlyTime : hourlyTimes.get(uniqueId).entrySet()) {
+                    preparedStatement.setBytes(1, UniqueIds.toBytes(uniqueId));
+                    preparedStatement.setInt(2, hourlyTime.getKey());
+                    preparedStatement.setLong(3, hourlyTime.getValue());
+
+                    preparedStatement.addBatch();
+                }
+            }
+
+            preparedStatement.executeBatch();
+
+            markWritten(uniqueIds);
+        }));
+    }
+
+    /**
+     * Recomputes the daily rollups of yesterday and today from the hourly buckets on every shard.
+     * Rollups are overwritten rather than added to, so running this from several proxies at once
+     * is harmless.
+     */
+    @Override
+    public @NotNull CompletableFuture<Void> rollupHistory(long now) {
+        if (isDisconnected()) {
+            return CompletableFuture.failedFuture(new UnsupportedOperationException("Connection is not available"));
+        }
+
+        long today = now / DAY;
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        for (HikariWakaConnector shard : shards) {
+            futures.add(runAsync(shard, Operation.ROLLUP_HISTORY, () -> {
+                try (Connection connection = shard.createConnection()) {
+                    PreparedStatement dailyStatement = connection.prepareStatement(
+                        textReader.getSql("rollup_wakacraft_daily")
+                    );
+
+                    dailyStatement.setLong(1, (today - 1) * 24);
+                    dailyStatement.setLong(2, (today + 1) * 24);
+
+                    dailyStatement.executeUpdate();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }));
+        }
+
+        return allOf(futures);
+    }
+
+    /**
+     * Keeps the hourly table partitioned by day: a partition is created ahead for today and the
+     * next two days, and the partitions older than {@code wakacraft.history.hourlyRetention}
+     * days are dropped, which is far cheaper than deleting their rows. Partitions are only kept
+     * on MySQL.
+     * <p>
+     * Once a day the daily rollups older than {@code wakacraft.history.dailyRetention} days are
+     * deleted as well.
+     * <p>
+     * Every proxy runs this, so a shard is skipped while another proxy holds its partition lock,
+     * and changes another proxy already made are ignored.
+     */
+    @Override
+    public @NotNull CompletableFuture<Void> maintainPartitions(long now) {
+        if (isDisconnected()) {
+            return CompletableFuture.failedFuture(new UnsupportedOperationException("Connection is not available"));
+        }
+
+        long today = now / DAY;
+        boolean purgeDays = purgedDay.getAndSet(today) != today;
+
+        if (!mysql && !purgeDays) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        for (HikariWakaConnector shard : shards) {
+            futures.add(runAsync(shard, Operation.MAINTAIN_PARTITIONS, () -> {
+                try (Connection connection = shard.createConnection()) {
+                    if (purgeDays) {
+                        PreparedStatement preparedStatement = connection.prepareStatement(
+                            textReader.getSql("delete_wakacraft_daily_expired")
+                        );
+
+                        preparedStatement.setLong(1, today - dailyRetention + 1);
+
+                        preparedStatement.executeUpdate();
+                    }
+
+                    if (!mysql || !lockPartitions(connection)) {
+                        return;
+                    }
+
+                    try {
+                        alterPartitions(connection, today);
+                    } finally {
+                        connection.createStatement().executeQuery(
+                            textReader.getSql("unlock_wakacraft_partitions")
+                        ).close();
+                    }
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }));
+        }
+
+        return allOf(futures);
+    }
+
+    private boolean lockPartitions(@NotNull Connection connection) throws Exception {
+        try (ResultSet resultSet = connection.createStatement().executeQuery(
+            textReader.getSql("lock_wakacraft_partitions")
+        )) {
+            return resultSet.next() && resultSet.getInt(1) == 1;
+        }
+    }
+
+    private void alterPartitions(@NotNull Connection connection, long today) throws Exception {
+        Map<String, Long> partitions = new LinkedHashMap<>();
+
+        ResultSet resultSet = connection.createStatement().executeQuery(
+            textReader.getSql("retrieve_wakacraft_hourly_partitions")
+        );
+
+        while (resultSet.next()) {
+            String description = resultSet.getString("PARTITION_DESCRIPTION");
+
+            partitions.put(
+                resultSet.getString("PARTITION_NAME"),
+                "MAXVALUE".equalsIgnoreCase(description) ? Long.MAX_VALUE : Long.parseLong(description)
+            );
+        }
+
+        Statement statement = connection.createStatement();
+
+        if (partitions.isEmpty()) {
+            statement.execute(
+                textReader.getSql("partition_wakacraft_hourly")
+            );
+        }
+
+        long lastBound = partitions.values().stream()
+            .filter(bound -> bound != Long.MAX_VALUE)
+            .max(Long::compare)
+            .orElse(Long.MIN_VALUE);
+
+        for (long day = today; day <= today + 2; day++) {
+            long bound = (day + 1) * 24;
+
+            if (bound > lastBound) {
+                alterPartition(statement, String.format(
+                    textReader.getSql("add_wakacraft_hourly_partition"),
+                    "p" + day, bound
+                ));
+            }
+        }
+
+        long oldestBound = (today - hourlyRetention + 1) * 24;
+
+        for (Map.Entry<String, Long> partition : partitions.entrySet()) {
+            if (partition.getValue() <= oldestBound) {
+                alterPartition(statement, String.format(
+                    textReader.getSql("drop_wakacraft_hourly_partition"),
+                    partition.getKey()
+                ));
+            }
+        }
+    }
+
+    /**
+     * Runs a partition change, ignoring it when another proxy already made it.
+     */
+    private static void alterPartition(@NotNull Statement statement, @NotNull String sql) throws SQLException {
+        try {
+            statement.execute(sql);
+        } catch (SQLException exception) {
+            int errorCode = exception.getErrorCode();
+
+            if (errorCode != ER_SAME_NAME_PARTITION && errorCode != ER_RANGE_NOT_INCREASING
+                && errorCode != ER_DROP_PARTITION_NON_EXISTENT) {
+                throw exception;
+            }
+        }
+    }
+
+    /**
+     * Reads the playtime of a player over the usual windows, with a fixed number of primary
+     * key lookups whatever the amount of history. Today is summed from the hourly buckets, so
+     * it does not wait for the next rollup, and the earlier days come from the daily rollups.
+     */
+    @Override
+    public @NotNull CompletableFuture<WakaHistory> loadHistory(@NotNull UUID uniqueId, long now) {
+        if (isDisconnected()) {
+            return CompletableFuture.failedFuture(new UnsupportedOperationException("Connection is not available"));
+        }
+
+        String query = textReader.getSql("retrieve_wakacraft_history");
+
+        long today = now / DAY;
+
+        return supplyAsync(shardOf(uniqueId), WakaExecutor.Priority.READ, Operation.LOAD_HISTORY, () -> {
+            try {
+                return read(shardOf(uniqueId), Collections.singleton(uniqueId), connection -> {
+                    PreparedStatement preparedStatement = connection.prepareStatement(query);
+
+                    byte[] id = UniqueIds.toBytes(uniqueId);
+
+                    preparedStatement.setBytes(1, id);
+                    preparedStatement.setLong(2, today * 24);
+                    preparedStatement.setLong(3, (today + 1) * 24);
+                    preparedStatement.setBytes(4, id);
+                    preparedStatement.setLong(5, weekOf(today) * 7 - 3);
+                    preparedStatement.setLong(6, today);
+                    preparedStatement.setBytes(7, id);
+                    preparedStatement.setLong(8, today - 7);
+                    preparedStatement.setLong(9, today);
+                    preparedStatement.setBytes(10, id);
+                    preparedStatement.setLong(11, today - 30);
+                    preparedStatement.setLong(12, today);
+
+                    ResultSet resultSet = preparedStatement.executeQuery();
+                    resultSet.next();
+
+                    long todayTime = resultSet.getLong("today");
+
+                    return new WakaHistory(
+                        todayTime,
+                        resultSet.getLong("this_week") + todayTime,
+                        resultSet.getLong("last_week") + todayTime,
+                        resultSet.getLong("last_month") + todayTime
+                    );
+                });
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    /**
+     * Reads every player of the table, one row at a time and one shard after the other, without
+     * holding the table in memory. The rows are streamed on MySQL and fetched in chunks elsewhere.
+     */
+    @Override
+    public @NotNull CompletableFuture<Void> streamPlayers(@NotNull Consumer<WakaPlayer> consumer) {
+        if (isDisconnected()) {
+            return CompletableFuture.failedFuture(new UnsupportedOperationException("Connection is not available"));
+        }
+
+        String query = textReader.getSql("retrieve_wakacraft_all");
+
+        return supplyAsync(connector, WakaExecutor.Priority.READ, Operation.STREAM_PLAYERS, () -> {
+            // Rows written meanwhile reach the leaderboard through the incremental updates anyway
+            try {
+                for (HikariWakaConnector shard : shards) {
+                    try (Connection connection = createReadConnection(shard)) {
+                        PreparedStatement preparedStatement = connection.prepareStatement(
+                            query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY
+                        );
+
+                        // Integer.MIN_VALUE makes the MySQL driver stream the rows instead of buffering them all
+                        preparedStatement.setFetchSize(mysql ? Integer.MIN_VALUE : 1000);
+
+                        ResultSet resultSet = preparedStatement.executeQuery();
+                        while (resultSet.next()) {
+                            consumer.accept(readPlayer(resultSet));
+                        }
+                    }
+                }
+
+                return null;
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    /**
+     * Runs one {@code IN} query per chunk of keys as separate tasks, caching every player read.
+     *
+     * @return a future completed once every chunk has been read
+     */
+    private @NotNull CompletableFuture<Void> loadChunks(@NotNull HikariWakaConnector shard, @NotNull String sql,
+                                                        @NotNull List<?> keys, @NotNull Consumer<WakaPlayer> consumer) {
+        if (keys.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        if (isDisconnected()) {
+            return CompletableFuture.failedFuture(new UnsupportedOperationException("Connection is not available"));
+        }
+
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+
+        for (int from = 0; from < keys.size(); from += lookupChunkSize) {
+            List<?> chunk = keys.subList(from, Math.min(keys.size(), from + lookupChunkSize));
+
+            chunks.add(supplyAsync(shard, WakaExecutor.Priority.READ, Operation.LOAD_PLAYERS, () -> {
+                try {
+                    List<WakaPlayer> wakaPlayers = read(shard, uniqueIdsOf(chunk), connection -> retrievePlayers(connection, sql, chunk));
+
+                    for (WakaPlayer wakaPlayer : wakaPlayers) {
+                        if (wakaPlayer.getPlayerName() != null) {
+                            nameIndex.put(wakaPlayer.getPlayerName(), wakaPlayer.getUniqueId());
+                        }
+
+                        playerCache.put(wakaPlayer);
+
+                        consumer.accept(wakaPlayer);
+                    }
+
+                    return null;
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }));
+        }
+
+        return allOf(chunks);
+    }
+
+    /**
+     * @return how many loads were served by a query already running for the same player
+     */
+    @Override
+    public long getCoalescedLoads() {
+        return coalescedLoads.sum();
+    }
+
+    @Override
+    public @NotNull WakaExecutor getThreadFactory() {
+        return executorService;
+    }
+
+    @Override
+    public @NotNull WriteBehindWakaCache getWriteBehindCache() {
+        return writeBehindCache;
+    }
+
+    public @NotNull WakaNameIndex getNameIndex() {
+        return nameIndex;
+    }
+
+    @Override
+    public @NotNull WakaPlayerCache getPlayerCache() {
+        return playerCache;
+    }
+
+    public @NotNull WakaDeltaAccumulator<String> getServerTimeAccumulator() {
+        return serverTimeAccumulator;
+    }
+
+    public @NotNull WakaDeltaAccumulator<Integer> getHourlyAccumulator() {
+        return hourlyAccumulator;
+    }
+
+    /**
+     * Sets the Redis snapshot mirrored on every load and save, and read while the database is unavailable.
+     */
+    @Override
+    public void setSnapshot(@Nullable RedisWakaSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Sets the Redis leaderboard updated with every save and reset.
+     */
+    @Override
+    public void setLeaderboard(@Nullable RedisWakaLeaderboard leaderboard) {
+        this.leaderboard = leaderboard;
+    }
+
+    /**
+     * Registers a listener called whenever saves or resets have been written.
+     */
+    @Override
+    public void addChangeListener(@NotNull WakaChangeListener changeListener) {
+        changeListeners.add(changeListener);
+    }
+
+    /**
+     * Drains the write-behind cache and waits for the running queries, up to the given timeout.
+     */
+    @Override
+    public void shutdown(long timeout, @NotNull TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        writeBehindCache.close(timeout, unit);
+        serverTimeAccumulator.close(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        hourlyAccumulator.close(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+
+        executorService.shutdown();
+        try {
+            executorService.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private @Nullable WakaPlayer retrievePlayer(@NotNull Connection connection, @NotNull UUID uniqueId,
+                                                @Nullable String name) throws Exception {
+        PreparedStatement preparedStatement = connection.prepareStatement(
+            textReader.getSql("retrieve_wakacraft_by_id")
+        );
+
+        preparedStatement.setBytes(1, UniqueIds.toBytes(uniqueId));
+
+        ResultSet resultSet = preparedStatement.executeQuery();
+        if (!resultSet.next()) {
+            return null;
+        }
+
+        return readPlayer(connection, uniqueId, name, resultSet);
+    }
+
+    /**
+     * Inserts a player unless it already exists and reads its row back, both statements being sent
+     * at once. Needs {@code allowMultiQueries} on MySQL.
+     */
+    private @NotNull WakaPlayer retrieveOrInsertPlayer(@NotNull Connection connection, @NotNull UUID uniqueId,
+                                                       @Nullable String name, long measureTime) throws Exception {
+        PreparedStatement preparedStatement = connection.prepareStatement(
+            textReader.getSql("retrieve_or_create_wakacraft_data")
+        );
+
+        byte[] id = UniqueIds.toBytes(uniqueId);
+
+        preparedStatement.setBytes(1, id);
+        preparedStatement.setString(2, name);
+        preparedStatement.setLong(3, measureTime);
+        preparedStatement.setBytes(4, id);
+
+        preparedStatement.execute();
+
+        boolean inserted = preparedStatement.getUpdateCount() > 0;
+
+        preparedStatement.getMoreResults();
+
+        ResultSet resultSet = preparedStatement.getResultSet();
+        resultSet.next();
+
+        if (!inserted) {
+            return readPlayer(connection, uniqueId, name, resultSet);
+        }
+
+        markWritten(Collections.singleton(uniqueId));
+
+        if (isSharded() && name != null) {
+            updateRoute(null, name, uniqueId);
+        }
+
+        return WakaPlayer.of(uniqueId, name, measureTime, resultSet.getTimestamp("created_at").toInstant().toEpochMilli());
+    }
+
+    /**
+     * Reads the row of a player, storing the given name if the player was renamed since.
+     */
+    private @NotNull WakaPlayer readPlayer(@NotNull Connection connection, @NotNull UUID uniqueId, @Nullable String name,
+                                           @NotNull ResultSet resultSet) throws Exception {
+        String storedName = resultSet.getString("player_name");
+
+        // The player was renamed since the last time it was seen
+        if (name != null && !name.equals(storedName)) {
+            PreparedStatement updateStatement = connection.prepareStatement(
+                textReader.getSql("update_wakacraft_name_by_id")
+            );
+
+            updateStatement.setString(1, name);
+            updateStatement.setBytes(2, UniqueIds.toBytes(uniqueId));
+
+            updateStatement.executeUpdate();
+
+            markWritten(Collections.singleton(uniqueId));
+
+            if (storedName != null) {
+                nameIndex.remove(storedName, uniqueId);
+            }
+
+            if (isSharded()) {
+                updateRoute(storedName, name, uniqueId);
+            }
+        }
+
+        return WakaPlayer.of(
+            uniqueId, name != null ? name : storedName,
+            measureTimeOf(uniqueId, resultSet.getLong("measure_time")),
+            resultSet.getTimestamp("created_at").toInstant().toEpochMilli()
+        );
+    }
+
+    private @Nullable WakaPlayer retrievePlayer(@NotNull Connection connection, @NotNull String name) throws Exception {
+        PreparedStatement preparedStatement = connection.prepareStatement(
+            textReader.getSql("retrieve_wakacraft_by_name")
+        );
+
+        preparedStatement.setString(1, name);
+
+        ResultSet resultSet = preparedStatement.executeQuery();
+        if (!resultSet.next()) {
+            return null;
+        }
+
+        return readPlayer(resultSet);
+    }
+
+    /**
+     * Reads the players matching the given keys with {@code IN} queries of up to
+     * {@code wakacraft.lookup.chunkSize} keys.
+     *
+     * @param sql the name of the query, with a {@code %s} for the placeholders
+     * @param keys unique ids or names
+     */
+    private @NotNull List<WakaPlayer> retrievePlayers(@NotNull Connection connection, @NotNull String sql,
+                                                      @NotNull Collection<?> keys) throws Exception {
+        List<WakaPlayer> wakaPlayers = new ArrayList<>(keys.size());
+
+        Iterator<?> iterator = keys.iterator();
+        for (int remaining = keys.size(); remaining > 0; remaining -= lookupChunkSize) {
+            int rows = Math.min(lookupChunkSize, remaining);
+
+            PreparedStatement preparedStatement = connection.prepareStatement(String.format(
+                textReader.getSql(sql),
+                String.join(", ", Collections.nCopies(rows, "?"))
+            ));
+
+            for (int index = 1; index <= rows; index++) {
+                Object key = iterator.next();
+
+                if (key instanceof UUID) {
+                    preparedStatement.setBytes(index, UniqueIds.toBytes((UUID) key));
+                } else {
+                    preparedStatement.setString(index, (String) key);
+                }
+            }
+
+            ResultSet resultSet = preparedStatement.executeQuery();
+            while (resultSet.next()) {
+                wakaPlayers.add(readPlayer(resultSet));
+            }
+        }
+
+        return wakaPlayers;
+    }
+
+    private @NotNull WakaPlayer readPlayer(@NotNull ResultSet resultSet) throws Exception {
+        UUID uniqueId = UniqueIds.fromBytes(resultSet.getBytes("unique_id"));
+
+        return WakaPlayer.of(
+            uniqueId, resultSet.getString("player_name"),
+            measureTimeOf(uniqueId, resultSet.getLong("measure_time")),
+            resultSet.getTimestamp("created_at").toInstant().toEpochMilli()
+        );
+    }
+
+    /**
+     * Mirrors the measure time just written for the given players to the leaderboard, if there is one.
+     * The name and creation time come from the player cache, only the players no longer cached are read
+     * back. The write already went through, so a failure here is only logged.
+     */
+    private void updateLeaderboard(@NotNull Connection connection, @NotNull Map<UUID, Long> measureTimes) {
+        RedisWakaLeaderboard leaderboard = this.leaderboard;
+        if (leaderboard == null || measureTimes.isEmpty()) {
+            return;
+        }
+
+        List<WakaPlayer> wakaPlayers = new ArrayList<>(measureTimes.size());
+        List<UUID> uncached = new ArrayList<>();
+
+        measureTimes.forEach((uniqueId, measureTime) -> {
+            WakaPlayer cachedPlayer = playerCache.getIfPresent(uniqueId);
+
+            if (cachedPlayer != null) {
+                wakaPlayers.add(WakaPlayer.of(uniqueId, cachedPlayer.getPlayerName(), measureTime, cachedPlayer.getCreated()));
+            } else {
+                uncached.add(uniqueId);
+            }
+        });
+
+        if (!uncached.isEmpty()) {
+            try {
+                wakaPlayers.addAll(retrievePlayers(connection, "retrieve_wakacraft_by_ids", uncached));
+            } catch (Exception exception) {
+                logger.log(Level.WARNING, "Could not read the players to rank", exception);
+            }
+        }
+
+        leaderboard.update(wakaPlayers);
+    }
+
+    private @Nullable UUID resolveUniqueId(@NotNull String name) throws Exception {
+        UUID uniqueId = nameIndex.get(name);
+        if (uniqueId != null) {
+            return uniqueId;
+        }
+
+        if (isSharded()) {
+            return retrieveRoute(name);
+        }
+
+        try (Connection connection = connector.createConnection()) {
+            WakaPlayer wakaPlayer = retrievePlayer(connection, name);
+            if (wakaPlayer == null) {
+                return null;
+            }
+
+            nameIndex.put(wakaPlayer.getPlayerName(), wakaPlayer.getUniqueId());
+
+            return wakaPlayer.getUniqueId();
+        }
+    }
+
+    /**
+     * @return the unique id the routes map the given name to, or null if there is none
+     */
+    private @Nullable UUID retrieveRoute(@NotNull String name) throws Exception {
+        try (Connection connection = connector.createConnection()) {
+            PreparedStatement preparedStatement = connection.prepareStatement(
+                textReader.getSql("retrieve_wakacraft_route")
+            );
+
+            preparedStatement.setString(1, name);
+
+            ResultSet resultSet = preparedStatement.executeQuery();
+            if (!resultSet.next()) {
+                return null;
+            }
+
+            UUID uniqueId = UniqueIds.fromBytes(resultSet.getBytes("unique_id"));
+
+            nameIndex.put(name, uniqueId);
+
+            return uniqueId;
+        }
+    }
+
+    /**
+     * Resolves names through the routes with {@code IN} queries of up to {@code wakacraft.lookup.chunkSize} names.
+     *
+     * @return the unique ids found
+     */
+    private @NotNull List<UUID> retrieveRoutes(@NotNull Connection connection, @NotNull Collection<String> names) throws Exception {
+        List<UUID> uniqueIds = new ArrayList<>(names.size());
+
+        Iterator<String> iterator = names.iterator();
+        for (int remaining = names.size(); remaining > 0; remaining -= lookupChunkSize) {
+            int rows = Math.min(lookupChunkSize, remaining);
+
+            PreparedStatement preparedStatement = connection.prepareStatement(String.format(
+                textReader.getSql("retrieve_wakacraft_routes"),
+                String.join(", ", Collections.nCopies(rows, "?"))
+            ));
+
+            for (int index = 1; index <= rows; index++) {
+                preparedStatement.setString(index, iterator.next());
+            }
+
+            ResultSet resultSet = preparedStatement.executeQuery();
+            while (resultSet.next()) {
+                UUID uniqueId = UniqueIds.fromBytes(resultSet.getBytes("unique_id"));
+
+                nameIndex.put(resultSet.getString("player_name"), uniqueId);
+                uniqueIds.add(uniqueId);
+            }
+        }
+
+        return uniqueIds;
+    }
+
+    /**
+     * Points the route of a name to a player, removing the route of its previous name if any.
+     */
+    private void updateRoute(@Nullable String previousName, @NotNull String name, @NotNull UUID uniqueId) throws Exception {
+        try (Connection connection = connector.createConnection()) {
+            if (previousName != null) {
+                PreparedStatement deleteStatement = connection.prepareStatement(
+                    textReader.getSql("delete_wakacraft_route")
+                );
+
+                deleteStatement.setString(1, previousName);
+                deleteStatement.setBytes(2, UniqueIds.toBytes(uniqueId));
+
+                deleteStatement.executeUpdate();
+            }
+
+            PreparedStatement preparedStatement = connection.prepareStatement(
+                textReader.getSql("update_wakacraft_route")
+            );
+
+            preparedStatement.setString(1, name);
+            preparedStatement.setBytes(2, UniqueIds.toBytes(uniqueId));
+
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    private void updateRoutes(@NotNull Collection<WakaPlayer> wakaPlayers) throws Exception {
+        try (Connection connection = connector.createConnection()) {
+            PreparedStatement preparedStatement = connection.prepareStatement(
+                textReader.getSql("update_wakacraft_route")
+            );
+
+            for (WakaPlayer wakaPlayer : wakaPlayers) {
+                if (wakaPlayer.getPlayerName() == null) {
+                    continue;
+                }
+
+                preparedStatement.setString(1, wakaPlayer.getPlayerName());
+                preparedStatement.setBytes(2, UniqueIds.toBytes(wakaPlayer.getUniqueId()));
+
+                preparedStatement.addBatch();
+            }
+
+            preparedStatement.executeBatch();
+        }
+    }
+
+    /**
+     * Looks a player up on the replica, when there is one and the player was not written by this
+     * proxy recently. Players missing there, or stored under another name, are left to the primary,
+     * which creates or renames them.
+     */
+    /**
+     * @param exactName whether a player stored under the name in another case must be read from the primary,
+     *                  so its name gets updated
+     */
+    private @Nullable WakaPlayer retrieveFromReplica(@Nullable UUID uniqueId, @Nullable String name, boolean exactName) {
+        if (uniqueId == null && isSharded()) {
+            return null;
+        }
+
+        HikariWakaConnector shard = uniqueId != null ? shardOf(uniqueId) : connector;
+
+        if (!shard.hasReplica() || (uniqueId != null && isRecentlyWritten(Collections.singleton(uniqueId)))) {
+            return null;
+        }
+
+        try (Connection connection = shard.createReplicaConnection()) {
+            if (connection == null) {
+                return null;
+            }
+
+            WakaPlayer wakaPlayer = uniqueId != null ? retrievePlayer(connection, uniqueId, null) :
+                retrievePlayer(connection, name);
+
+            if (wakaPlayer == null || (name != null && (exactName ? !name.equals(wakaPlayer.getPlayerName()) :
+                !name.equalsIgnoreCase(wakaPlayer.getPlayerName())))) {
+                return null;
+            }
+
+            return wakaPlayer;
+        } catch (Exception exception) {
+            return null;
+        }
+    }
+
+    private @NotNull WakaPlayer cachePlayer(@NotNull WakaPlayer wakaPlayer) {
+        if (wakaPlayer.getPlayerName() != null) {
+            nameIndex.put(wakaPlayer.getPlayerName(), wakaPlayer.getUniqueId());
+        }
+
+        playerCache.put(wakaPlayer);
+
+        RedisWakaSnapshot snapshot = this.snapshot;
+        if (snapshot != null) {
+            snapshot.store(wakaPlayer);
+        }
+
+        return wakaPlayer;
+    }
+
+    /**
+     * Runs a query on the replica, falling back to the primary when there is no replica, it fails,
+     * or one of the given players was written by this proxy recently.
+     *
+     * @param uniqueIds the players read, or null if unknown
+     */
+    private <T> T read(@NotNull HikariWakaConnector shard, @Nullable Collection<UUID> uniqueIds,
+                       @NotNull Query<T> query) throws Exception {
+        if (shard.hasReplica() && (uniqueIds == null || !isRecentlyWritten(uniqueIds))) {
+            try (Connection connection = shard.createReplicaConnection()) {
+                if (connection != null) {
+                    return query.execute(connection);
+                }
+            } catch (Exception ignored) {
+                // Read from the primary instead
+            }
+        }
+
+        try (Connection connection = shard.createConnection()) {
+            return query.execute(connection);
+        }
+    }
+
+    private @NotNull Connection createReadConnection(@NotNull HikariWakaConnector shard) throws Exception {
+        Connection connection = shard.createReplicaConnection();
+
+        return connection != null ? connection : shard.createConnection();
+    }
+
+    /**
+     * @return the unique ids among the given keys, names resolved through the name index
+     */
+    private @Nullable Collection<UUID> uniqueIdsOf(@NotNull Collection<?> keys) {
+        List<UUID> uniqueIds = new ArrayList<>(keys.size());
+
+        for (Object key : keys) {
+            UUID uniqueId = key instanceof UUID ? (UUID) key : nameIndex.get((String) key);
+
+            // An unknown name may belong to a player written just now
+            if (uniqueId == null) {
+                return null;
+            }
+
+            uniqueIds.add(uniqueId);
+        }
+
+        return uniqueIds;
+    }
+
+    private void markWritten(@NotNull Collection<UUID> uniqueIds) {
+        if (!replicated) {
+            return;
+        }
+
+        long now = System.nanoTime();
+
+        for (UUID uniqueId : uniqueIds) {
+            recentWrites.put(uniqueId, now);
+        }
+
+        if (recentWrites.size() > 10000) {
+            recentWrites.values().removeIf(writtenAt -> now - writtenAt >= replicaLagNanos);
+        }
+    }
+
+    private boolean isRecentlyWritten(@NotNull Collection<UUID> uniqueIds) {
+        long now = System.nanoTime();
+
+        for (UUID uniqueId : uniqueIds) {
+            Long writtenAt = recentWrites.get(uniqueId);
+
+            if (writtenAt != null) {
+                if (now - writtenAt < replicaLagNanos) {
+                    return true;
+                }
+
+                recentWrites.remove(uniqueId, writtenAt);
+            }
+        }
+
+        return false;
+    }
+
+    private void notifyChanged(@NotNull Collection<UUID> uniqueIds) {
+        for (WakaChangeListener changeListener : changeListeners) {
+            try {
+                changeListener.onPlayersChanged(uniqueIds);
+            } catch (Exception exception) {
+                logger.log(Level.SEVERE, "A change listener failed", exception);
+            }
+        }
+    }
+
+    private void cacheMeasureTime(@NotNull UUID uniqueId, long measureTime) {
+        playerCache.update(uniqueId, wakaPlayer -> WakaPlayer.of(
+            uniqueId, wakaPlayer.getPlayerName(),
+            measureTime,
+            wakaPlayer.getCreated()
+        ));
+
+        RedisWakaSnapshot snapshot = this.snapshot;
+        if (snapshot != null) {
+            snapshot.storeMeasureTime(uniqueId, measureTime);
+        }
+    }
+
+    /**
+     * @return the measure time waiting in the write-behind cache, falling back to the stored one
+     */
+    private long measureTimeOf(@NotNull UUID uniqueId, long storedTime) {
+        Long pendingTime = writeBehindCache.getPending(uniqueId);
+
+        return pendingTime != null ? pendingTime : storedTime;
+    }
+
+    private @NotNull WakaPlayer insertPlayer(@NotNull Connection connection, @NotNull UUID uniqueId, @Nullable String name,
+                                             long measureTime) throws Exception {
+        PreparedStatement preparedStatement = connection.prepareStatement(
+            textReader.getSql("create_wakacraft_data")
+        );
+
+        preparedStatement.setBytes(1, UniqueIds.toBytes(uniqueId));
+
+        preparedStatement.setString(2, name);
+
+        preparedStatement.setLong(3, measureTime);
+        preparedStatement.setLong(4, measureTime);
+
+        preparedStatement.executeUpdate();
+
+        markWritten(Collections.singleton(uniqueId));
+
+        if (isSharded() && name != null) {
+            updateRoute(null, name, uniqueId);
+        }
+
+        return WakaPlayer.of(uniqueId, name, measureTime, System.currentTimeMillis());
+    }
+
+    private void bindCheckpoint(@NotNull PreparedStatement preparedStatement, @NotNull Iterator<UUID> iterator,
+                                @NotNull Map<UUID, String> players, int rows, long measureTime) throws Exception {
+        int index = 1;
+
+        for (int row = 0; row < rows; row++) {
+            UUID uniqueId = iterator.next();
+
+            preparedStatement.setBytes(index++, UniqueIds.toBytes(uniqueId));
+            preparedStatement.setString(index++, players.get(uniqueId));
+            preparedStatement.setLong(index++, measureTime);
+        }
+    }
+
+    private @NotNull String valuesOf(int rows) {
+        return String.join(", ", Collections.nCopies(rows, "(?, ?, ?)"));
+    }
+
+    /**
+     * Submits a query, turning a rejection of the bounded queue into a failed future.
+     * Nothing is queued while the circuit breaker is open, which the outcome of the query feeds.
+     */
+    private <T> @NotNull CompletableFuture<T> supplyAsync(@NotNull HikariWakaConnector shard, @NotNull WakaExecutor.Priority priority,
+                                                          @NotNull Operation operation, @NotNull Supplier<T> supplier) {
+        if (shard.getCircuitBreaker().isOpen()) {
+            return CompletableFuture.failedFuture(new WakaCircuitOpenException());
+        }
+
+        WakaHistogram timer = timers.get(operation);
+        long queuedAt = System.nanoTime();
+
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long start = System.nanoTime();
+                queueTimer.record(start - queuedAt);
+
+                try {
+                    T result = supplier.get();
+
+                    shard.getCircuitBreaker().recordSuccess();
+
+                    return result;
+                } catch (RuntimeException e) {
+                    timer.recordError();
+
+                    if (WakaCircuitBreaker.isQueryFailure(e)) {
+                        shard.getCircuitBreaker().recordFailure();
+                    }
+
+                    throw e;
+                } finally {
+                    timer.recordSince(start);
+                }
+            }, executorService.withPriority(priority));
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private @NotNull CompletableFuture<Void> runAsync(@NotNull HikariWakaConnector shard, @NotNull Operation operation,
+                                                      @NotNull Runnable runnable) {
+        return supplyAsync(shard, WakaExecutor.Priority.WRITE, operation, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs a write on every shard holding some of the given players, each with the players it holds.
+     */
+    private @NotNull CompletableFuture<Void> runOnShards(@NotNull Collection<UUID> uniqueIds, @NotNull Operation operation,
+                                                         @NotNull ShardWrite write) {
+        return allOf(new ArrayList<>(runOnEachShard(uniqueIds, operation, write).values()));
+    }
+
+    /**
+     * Runs a write on every shard holding some of the given players, each with the players it holds.
+     *
+     * @return the result of each shard, by the players it holds
+     */
+    private @NotNull Map<Collection<UUID>, CompletableFuture<Void>> runOnEachShard(@NotNull Collection<UUID> uniqueIds,
+                                                                                @NotNull Operation operation,
+                                                                                @NotNull ShardWrite write) {
+        Map<Collection<UUID>, CompletableFuture<Void>> results = new LinkedHashMap<>();
+
+        groupByShard(uniqueIds).forEach((shard, shardIds) -> results.put(shardIds, runAsync(shard, operation, () -> {
+            try (Connection connection = shard.createConnection()) {
+                write.execute(connection, shardIds);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        })));
+
+        return results;
+    }
+
+    /**
+     * Wraps an additive write so it is applied at most once per batch: the batch id is recorded in
+     * {@code waka_craft_flush} within the same transaction, so retrying a batch whose commit went through
+     * but whose result was lost adds nothing. Batch ids are kept for a day.
+     */
+    private @NotNull ShardWrite addOnce(@NotNull UUID batchId, @NotNull ShardWrite write) {
+        return (connection, uniqueIds) -> {
+            connection.setAutoCommit(false);
+
+            try {
+                PreparedStatement insertFlush = connection.prepareStatement(textReader.getSql("insert_wakacraft_flush"));
+                insertFlush.setBytes(1, UniqueIds.toBytes(batchId));
+                insertFlush.setLong(2, System.currentTimeMillis());
+
+                try {
+                    insertFlush.executeUpdate();
+                } catch (SQLIntegrityConstraintViolationException alreadyAdded) {
+                    connection.rollback();
+                    return;
+                }
+
+                write.execute(connection, uniqueIds);
+
+                PreparedStatement deleteFlushes = connection.prepareStatement(textReader.getSql("delete_wakacraft_flushes"));
+                deleteFlushes.setLong(1, System.currentTimeMillis() - DAY);
+                deleteFlushes.executeUpdate();
+
+                connection.commit();
+            } catch (Exception e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        };
+    }
+
+    /**
+     * @return the given players by shard, in their original order
+     */
+    private @NotNull Map<HikariWakaConnector, List<UUID>> groupByShard(@NotNull Collection<UUID> uniqueIds) {
+        if (!isSharded()) {
+            return Collections.singletonMap(connector, new ArrayList<>(uniqueIds));
+        }
+
+        Map<HikariWakaConnector, List<UUID>> groups = new LinkedHashMap<>();
+
+        for (UUID uniqueId : uniqueIds) {
+            groups.computeIfAbsent(shardOf(uniqueId), shard -> new ArrayList<>()).add(uniqueId);
+        }
+
+        return groups;
+    }
+
+    private @NotNull HikariWakaConnector shardOf(@NotNull UUID uniqueId) {
+        return isSharded() ? shards.get(WakaShards.indexOf(uniqueId, shards.size())) : connector;
+    }
+
+    private boolean isSharded() {
+        return shards.size() > 1;
+    }
+
+    private static @NotNull UUID offlineUniqueId(@Nullable String name) {
+        return UUID.nameUUIDFromBytes(String.format("OfflinePlayer:%s", name).getBytes());
+    }
+
+    private static @NotNull CompletableFuture<Void> allOf(@NotNull List<CompletableFuture<Void>> futures) {
+        return futures.size() == 1 ? futures.get(0) : CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * @return the week of a day since the epoch, weeks start on monday
+     */
+    private static long weekOf(long day) {
+        // The epoch was a thursday
+        return Math.floorDiv(day + 3, 7);
+    }
+
+    private boolean isDisconnected() {
+        return shards.stream().anyMatch(shard -> !shard.isConnected());
+    }
+
+    @FunctionalInterface
+    private interface Query<T> {
+
+        T execute(@NotNull Connection connection) throws Exception;
+    }
+
+    /**
+     * The operations timed in {@code wakacraft_db_operation_seconds}, from the moment they leave the queue.
+     */
+    private enum Operation {
+        LOAD_PLAYER, LOAD_PLAYERS, SAVE_PLAYER, SAVE_PLAYERS, CHECKPOINT_PLAYERS, RESET_PLAYER, CREATE_PLAYER,
+        CREATE_PLAYERS, ADD_SERVER_TIMES, ADD_HOURLY_TIMES, LOAD_SERVER_TIMES, LOAD_HISTORY, ROLLUP_HISTORY,
+        MAINTAIN_PARTITIONS, STREAM_PLAYERS
+    }
+
+    @FunctionalInterface
+    private interface ShardWrite {
+
+        void execute(@NotNull Connection connection, @NotNull List<UUID> uniqueIds) throws Exception;
     }
 }
@@ -0,0 +1,151 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Luiz Otávio
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.teamdiluvian.wakacraft.persistent;
+
+import com.teamdiluvian.wakacraft.leaderboard.RedisWakaLeaderboard;
+import com.teamdiluvian.wakacraft.model.WakaHistory;
+import com.teamdiluvian.wakacraft.model.WakaPlayer;
+import com.teamdiluvian.wakacraft.persistent.cache.RedisWakaSnapshot;
+import com.teamdiluvian.wakacraft.persistent.cache.WakaPlayerCache;
+import com.teamdiluvian.wakacraft.persistent.cache.WriteBehindWakaCache;
+import com.teamdiluvian.wakacraft.persistent.connector.WakaCircuitBreaker;
+import com.teamdiluvian.wakacraft.persistent.executor.WakaExecutor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * The asynchronous storage of the playtime of players.
+ *
+ * @author TeamDiluvian
+ * @since 18/10/2026
+ */
+public interface WakaDatabase {
+
+    /**
+     * Loads a player by unique id or name, creating it when it does not exist yet.
+     */
+    @NotNull CompletableFuture<WakaPlayer> loadPlayer(@Nullable UUID unique, @Nullable String name);
+
+    @NotNull CompletableFuture<WakaPlayer> loadPlayer(@Nullable UUID unique, @Nullable String name,
+                                                      @NotNull WakaExecutor.Priority priority);
+
+    /**
+     * Looks a player up by name without creating it.
+     *
+     * @return the player, or null if no player goes by the name
+     */
+    @NotNull CompletableFuture<WakaPlayer> findPlayer(@NotNull String name);
+
+    /**
+     * @return the players found, by unique id, missing players are left out
+     */
+    @NotNull CompletableFuture<Map<UUID, WakaPlayer>> loadPlayers(@NotNull Collection<UUID> uniqueIds);
+
+    /**
+     * @return the players found, by the requested name, missing players are left out
+     */
+    @NotNull CompletableFuture<Map<String, WakaPlayer>> loadPlayersByName(@NotNull Collection<String> names);
+
+    @NotNull CompletableFuture<Void> savePlayer(@Nullable UUID uniqueId, @Nullable String name, long measureTime);
+
+    @NotNull CompletableFuture<Void> savePlayers(@NotNull Map<UUID, Long> measureTimes);
+
+    /**
+     * Writes the measure time of several players, leaving the ones already stored with a later measure time.
+     */
+    @NotNull CompletableFuture<Void> savePlayersIfNewer(@NotNull Map<UUID, Long> measureTimes);
+
+    /**
+     * Writes the measure time of online players, creating the ones that do not exist yet.
+     *
+     * @param players the names of the players to write, by unique id
+     */
+    @NotNull CompletableFuture<Void> checkpointPlayers(@NotNull Map<UUID, String> players, long measureTime);
+
+    @NotNull CompletableFuture<Void> resetPlayer(@Nullable UUID uniqueId, @Nullable String name);
+
+    @NotNull CompletableFuture<WakaPlayer> createPlayer(@NotNull UUID uniqueId, @Nullable String name, long measureTime);
+
+    /**
+     * Creates the given players, leaving the ones that already exist untouched.
+     */
+    @NotNull CompletableFuture<Void> createPlayers(@NotNull Collection<WakaPlayer> wakaPlayers);
+
+    /**
+     * @return the playtime by server name, longest first
+     */
+    @NotNull CompletableFuture<Map<String, Long>> loadServerTimes(@NotNull UUID uniqueId);
+
+    /**
+     * Counts a stretch of time a player spent on a server.
+     */
+    void recordPlaytime(@NotNull UUID uniqueId, @NotNull String server, long from, long to);
+
+    @NotNull CompletableFuture<Void> rollupHistory(long now);
+
+    @NotNull CompletableFuture<Void> maintainPartitions(long now);
+
+    @NotNull CompletableFuture<WakaHistory> loadHistory(@NotNull UUID uniqueId, long now);
+
+    /**
+     * Reads every stored player, one at a time.
+     */
+    @NotNull CompletableFuture<Void> streamPlayers(@NotNull Consumer<WakaPlayer> consumer);
+
+    @NotNull WakaCircuitBreaker getCircuitBreaker();
+
+    /**
+     * @return the circuit breaker of the read replica, or null if reads are not split
+     */
+    @Nullable WakaCircuitBreaker getReplicaCircuitBreaker();
+
+    @NotNull WakaExecutor getThreadFactory();
+
+    @NotNull WriteBehindWakaCache getWriteBehindCache();
+
+    @NotNull WakaPlayerCache getPlayerCache();
+
+    long getCoalescedLoads();
+
+    void setSnapshot(@Nullable RedisWakaSnapshot snapshot);
+
+    void setLeaderboard(@Nullable RedisWakaLeaderboard leaderboard);
+
+    void addChangeListener(@NotNull WakaChangeListener changeListener);
+
+    /**
+     * Writes the pending changes and waits for the running operations, up to the given timeout.
+     */
+    void shutdown(long timeout, @NotNull TimeUnit unit);
+
+}
@@ -0,0 +1,171 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Luiz Otávio
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.teamdiluvian.wakacraft.persistent.cache;
+
+import com.teamdiluvian.wakacraft.persistent.WakaChangeListener;
+import org.jetbrains.annotations.NotNull;
+import redis.clients.jedis.BinaryJedisPubSub;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the player caches of every proxy coherent through a Redis pub/sub channel.
+ *
+ * @author TeamDiluvian
+ * @since 18/10/2026
+ */
+public class RedisWakaInvalidator extends BinaryJedisPubSub implements WakaChangeListener {
+
+    private static final byte[] CHANNEL = "wakacraft-invalidation".getBytes(StandardCharsets.UTF_8);
+
+    private final UUID proxyId = UUID.randomUUID();
+
+    private final JedisPool jedisPool;
+    private final WakaPlayerCache playerCache;
+    private final Logger logger;
+
+    private final ExecutorService publisher;
+    private final Thread subscriber;
+
+    private volatile boolean running = true;
+
+    public RedisWakaInvalidator(@NotNull JedisPool jedisPool, @NotNull WakaPlayerCache playerCache, @NotNull Logger logger) {
+        this.jedisPool = jedisPool;
+        this.playerCache = playerCache;
+        this.logger = logger;
+
+        publisher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable);
+
+            thread.setName("Wakacraft-Invalidation-Publisher");
+
+            return thread;
+        });
+
+        subscriber = new Thread(this::subscribe);
+        subscriber.setName("Wakacraft-Invalidation-Subscriber");
+        subscriber.setDaemon(true);
+        subscriber.start();
+    }
+
+    @Override
+    public void onPlayersChanged(@NotNull Collection<UUID> uniqueIds) {
+        if (uniqueIds.isEmpty()) {
+            return;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(16 * (uniqueIds.size() + 1));
+        write(buffer, proxyId);
+
+        for (UUID uniqueId : uniqueIds) {
+            write(buffer, uniqueId);
+        }
+
+        try {
+            publisher.execute(() -> {
+                try (Jedis jedis = jedisPool.getResource()) {
+                    jedis.publish(CHANNEL, buffer.array());
+                } catch (Exception exception) {
+                    logger.log(Level.WARNING, "Could not publish a cache invalidation", exception);
+                }
+            });
+        } catch (RejectedExecutionException ignored) {
+            // Shutting down, the other proxies will see the change once their entries expire
+        }
+    }
+
+    @Override
+    public void onMessage(byte[] channel, byte[] message) {
+        ByteBuffer buffer = ByteBuffer.wrap(message);
+
+        if (buffer.remaining() < 16 || proxyId.equals(read(buffer))) {
+            return;
+        }
+
+        while (buffer.remaining() >= 16) {
+            playerCache.invalidate(read(buffer));
+        }
+    }
+
+    /**
+     * Publishes the pending messages and stops listening to the channel.
+     */
+    public void close(long timeout, @NotNull TimeUnit unit) {
+        running = false;
+
+        publisher.shutdown();
+        try {
+            publisher.awaitTermination(timeout, unit);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (isSubscribed()) {
+            unsubscribe();
+        }
+    }
+
+    private void subscribe() {
+        while (running) {
+            try (Jedis jedis = jedisPool.getResource()) {
+                jedis.subscribe(this, CHANNEL);
+            } catch (Exception exception) {
+                if (!running) {
+                    return;
+                }
+
+                logger.log(Level.WARNING, "Lost the cache invalidation subscription", exception);
+            }
+
+            // Lost the connection, entries changed meanwhile are only refreshed on expiry
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException exception) {
+                return;
+            }
+        }
+    }
+
+    private void write(@NotNull ByteBuffer buffer, @NotNull UUID uniqueId) {
+        buffer.putLong(uniqueId.getMostSignificantBits());
+        buffer.putLong(uniqueId.getLeastSignificantBits());
+    }
+
+    private @NotNull UUID read(@NotNull ByteBuffer buffer) {
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Luiz Otávio
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.teamdiluvian.wakacraft.persistent.cache;
+
+import com.teamdiluvian.wakacraft.metrics.WakaHistogram;
+import com.teamdiluvian.wakacraft.metrics.WakaMetrics;
+import com.teamdiluvian.wakacraft.model.WakaPlayer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Mirrors the last known state of every loaded player in Redis, for reads while the database is down.
+ *
+ * @author TeamDiluvian
+ * @since 18/10/2026
+ */
+public class RedisWakaSnapshot {
+
+    private static final String KEY_PREFIX = "wakacraft-snapshot:";
+    private static final String NAME_KEY_PREFIX = "wakacraft-snapshot-name:";
+
+    private final JedisPool jedisPool;
+    private final long expireAfter;
+    private final Logger logger;
+
+    private final ExecutorService writer;
+    private final ExecutorService reader;
+
+    private final WakaHistogram writeTimer;
+    private final WakaHistogram readTimer;
+
+    public RedisWakaSnapshot(@NotNull JedisPool jedisPool, long expireAfter, @NotNull WakaMetrics metrics,
+                             @NotNull Logger logger) {
+        this.jedisPool = jedisPool;
+        this.expireAfter = expireAfter;
+        this.logger = logger;
+
+        writeTimer = metrics.histogram("wakacraft_redis_seconds", "Time spent on Redis round trips", "operation", "snapshot_write");
+        readTimer = metrics.histogram("wakacraft_redis_seconds", "Time spent on Redis round trips", "operation", "snapshot_read");
+
+        // Writes are applied in order on one thread, reads never wait behind them
+        writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable);
+
+            thread.setName("Wakacraft-Snapshot-Writer");
+
+            return thread;
+        });
+
+        reader = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable);
+
+            thread.setName("Wakacraft-Snapshot-Reader");
+
+            return thread;
+        });
+    }
+
+    public void store(@NotNull WakaPlayer wakaPlayer) {
+        String key = KEY_PREFIX + wakaPlayer.getUniqueId();
+
+        Map<String, String> fields = new HashMap<>();
+        fields.put("measure_time", Long.toString(wakaPlayer.getMeasureTime()));
+        fields.put("created_at", Long.toString(wakaPlayer.getCreated()));
+
+        if (wakaPlayer.getPlayerName() != null) {
+            fields.put("player_name", wakaPlayer.getPlayerName());
+        }
+
+        pipelined(pipeline -> {
+            pipeline.hset(key, fields);
+            pipeline.pexpire(key, expireAfter);
+
+            if (wakaPlayer.getPlayerName() != null) {
+                pipeline.psetex(nameKey(wakaPlayer.getPlayerName()), expireAfter, wakaPlayer.getUniqueId().toString());
+            }
+        });
+    }
+
+    /**
+     * Updates the measure time of a player, if it already has a snapshot.
+     */
+    public void storeMeasureTime(@NotNull UUID uniqueId, long measureTime) {
+        String key = KEY_PREFIX + uniqueId;
+
+        write(jedis -> {
+            if (jedis.exists(key)) {
+                jedis.hset(key, "measure_time", Long.toString(measureTime));
+            }
+        });
+    }
+
+    public void remove(@NotNull UUID uniqueId) {
+        String key = KEY_PREFIX + uniqueId;
+
+        write(jedis -> {
+            String name = jedis.hget(key, "player_name");
+
+            jedis.del(key);
+
+            // The name may belong to another player by now
+            if (name != null && uniqueId.toString().equals(jedis.get(nameKey(name)))) {
+                jedis.del(nameKey(name));
+            }
+        });
+    }
+
+    /**
+     * Looks a player up by unique id, or by name when the unique id is unknown.
+     *
+     * @return a future completed with the snapshot, or with null if there is none
+     */
+    public @NotNull CompletableFuture<WakaPlayer> find(@Nullable UUID uniqueId, @Nullable String name) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long start = System.nanoTime();
+
+                try (Jedis jedis = jedisPool.getResource()) {
+                    UUID resolved = uniqueId;
+
+                    if (resolved == null && name != null) {
+                        String stored = jedis.get(nameKey(name));
+
+                        resolved = stored == null ? null : UUID.fromString(stored);
+                    }
+
+                    if (resolved == null) {
+                        return null;
+                    }
+
+                    Map<String, String> fields = jedis.hgetAll(KEY_PREFIX + resolved);
+                    if (fields.isEmpty()) {
+                        return null;
+                    }
+
+                    return WakaPlayer.of(
+                        resolved, fields.get("player_name"),
+                        Long.parseLong(fields.get("measure_time")),
+                        Long.parseLong(fields.get("created_at"))
+                    );
+                } catch (RuntimeException exception) {
+                    readTimer.recordError();
+                    throw exception;
+                } finally {
+                    readTimer.recordSince(start);
+                }
+            }, reader);
+        } catch (RejectedExecutionException exception) {
+            return CompletableFuture.failedFuture(exception);
+        }
+    }
+
+    /**
+     * Applies the pending writes and stops both threads.
+     */
+    public void close(long timeout, @NotNull TimeUnit unit) {
+        reader.shutdown();
+        writer.shutdown();
+
+        try {
+            writer.awaitTermination(timeout, unit);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static @NotNull String nameKey(@NotNull String name) {
+        return NAME_KEY_PREFIX + name.toLowerCase(Locale.ROOT);
+    }
+
+    private void pipelined(@NotNull Consumer<Pipeline> write) {
+        write(jedis -> {
+            Pipeline pipeline = jedis.pipelined();
+
+            write.accept(pipeline);
+
+            pipeline.sync();
+        });
+    }
+
+    private void write(@NotNull Consumer<Jedis> write) {
+        try {
+            writer.execute(() -> {
+                long start = System.nanoTime();
+
+                try (Jedis jedis = jedisPool.getResource()) {
+                    write.accept(jedis);
+                } catch (Exception exception) {
+                    writeTimer.recordError();
+
+                    logger.log(Level.WARNING, "Could not write the Redis snapshot", exception);
+                } finally {
+                    writeTimer.recordSince(start);
+                }
+            });
+        } catch (RejectedExecutionException ignored) {
+            // Shutting down, the snapshot is only a fallback
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Luiz Otávio
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.teamdiluvian.wakacraft.persistent.cache;
+
+import com.teamdiluvian.wakacraft.persistent.connector.WakaCircuitBreaker;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sums time per player and per bucket in memory and adds it to the database in idempotent batches.
+ *
+ * @param <T> the type of the bucket
+ * @author TeamDiluvian
+ * @since 18/10/2026
+ */
+public class WakaDeltaAccumulator<T> {
+
+    private final Writer<T> writer;
+    private final int batchSize;
+    private final Logger logger;
+
+    private final Map<Delta<T>, Long> deltas = new ConcurrentHashMap<>();
+    private final Queue<Batch<T>> retries = new ConcurrentLinkedQueue<>();
+
+    private final ScheduledExecutorService scheduler;
+
+    public WakaDeltaAccumulator(@NotNull String name, @NotNull Writer<T> writer, long flushInterval, int batchSize,
+                                @NotNull Logger logger) {
+        this.writer = writer;
+        this.batchSize = batchSize;
+        this.logger = logger;
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable);
+
+            thread.setName("Wakacraft-" + name);
+
+            return thread;
+        });
+
+        scheduler.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    public void add(@NotNull UUID uniqueId, @NotNull T bucket, long time) {
+        if (time > 0) {
+            deltas.merge(new Delta<>(uniqueId, bucket), time, Long::sum);
+        }
+    }
+
+    /**
+     * @return the time of a player not written yet, by bucket
+     */
+    public @NotNull Map<T, Long> getPending(@NotNull UUID uniqueId) {
+        Map<T, Long> pending = new HashMap<>();
+
+        deltas.forEach((delta, time) -> {
+            if (delta.getUniqueId().equals(uniqueId)) {
+                pending.merge(delta.getBucket(), time, Long::sum);
+            }
+        });
+
+        for (Batch<T> batch : retries) {
+            batch.deltas.forEach((delta, time) -> {
+                if (delta.getUniqueId().equals(uniqueId)) {
+                    pending.merge(delta.getBucket(), time, Long::sum);
+                }
+            });
+        }
+
+        return pending;
+    }
+
+    public int size() {
+        int size = deltas.size();
+
+        for (Batch<T> batch : retries) {
+            size += batch.deltas.size();
+        }
+
+        return size;
+    }
+
+    /**
+     * Retries the batches that failed, then writes the accumulated time one batch at a time.
+     * The players written along with the ones whose write failed are not written again.
+     */
+    public synchronized void flush() {
+        int failed = retries.size();
+
+        for (int index = 0; index < failed; index++) {
+            if (!write(retries.poll())) {
+                return;
+            }
+        }
+
+        Map<Delta<T>, Long> batch;
+
+        while (!(batch = drain()).isEmpty()) {
+            if (!write(new Batch<>(UUID.randomUUID(), batch))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stops the flush timer and writes whatever is still accumulated.
+     */
+    public void close(long timeout, @NotNull TimeUnit unit) {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(timeout, unit);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+
+        flush();
+
+        if (size() > 0) {
+            logger.warning("Could not write " + size() + " accumulated playtime deltas");
+        }
+    }
+
+    /**
+     * Writes a batch, the part of it that failed to reach the database is queued to be retried with
+     * the same id. The part rejected by the database itself would fail again, so it is dropped.
+     *
+     * @return whether nothing was queued to be retried
+     */
+    private boolean write(@NotNull Batch<T> batch) {
+        Map<UUID, Map<T, Long>> times = new HashMap<>();
+        batch.deltas.forEach((delta, time) -> times.computeIfAbsent(delta.getUniqueId(), key -> new HashMap<>())
+            .put(delta.getBucket(), time));
+
+        Map<Collection<UUID>, CompletableFuture<Void>> results;
+        try {
+            results = writer.write(batch.id, times);
+        } catch (Exception exception) {
+            results = Map.of(times.keySet(), CompletableFuture.failedFuture(exception));
+        }
+
+        Set<UUID> failed = new HashSet<>();
+
+        for (Map.Entry<Collection<UUID>, CompletableFuture<Void>> result : results.entrySet()) {
+            try {
+                result.getValue().join();
+            } catch (Exception exception) {
+                if (WakaCircuitBreaker.isConnectionFailure(exception)) {
+                    failed.addAll(result.getKey());
+                } else {
+                    logger.log(Level.SEVERE, "Dropped the playtime deltas of " + result.getKey().size() + " players", exception);
+                }
+            }
+        }
+
+        if (failed.isEmpty()) {
+            return true;
+        }
+
+        Map<Delta<T>, Long> remaining = new HashMap<>();
+        batch.deltas.forEach((delta, time) -> {
+            if (failed.contains(delta.getUniqueId())) {
+                remaining.put(delta, time);
+            }
+        });
+
+        retries.add(new Batch<>(batch.id, remaining));
+        return false;
+    }
+
+    private @NotNull Map<Delta<T>, Long> drain() {
+        Map<Delta<T>, Long> batch = new HashMap<>();
+
+        Iterator<Delta<T>> iterator = deltas.keySet().iterator();
+        while (batch.size() < batchSize && iterator.hasNext()) {
+            Delta<T> delta = iterator.next();
+            Long time = deltas.remove(delta);
+
+            if (time != null) {
+                batch.put(delta, time);
+            }
+        }
+
+        return batch;
+    }
+
+    @FunctionalInterface
+    public interface Writer<T> {
+
+        /**
+         * Adds the given time to the stored one, by player and then by bucket, unless a write
+         * with the same batch id already did.
+         *
+         * @return the result of each group of players written together, the players of a shard for instance
+         */
+        @NotNull Map<Collection<UUID>, CompletableFuture<Void>> write(@NotNull UUID batchId, @NotNull Map<UUID, Map<T, Long>> times);
+    }
+
+    @RequiredArgsConstructor
+    private static class Batch<T> {
+
+        private final UUID id;
+        private final Map<Delta<T>, Long> deltas;
+    }
+
+    @Getter
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class Delta<T> {
+
+        private final UUID uniqueId;
+        private final T bucket;
+    }
+}
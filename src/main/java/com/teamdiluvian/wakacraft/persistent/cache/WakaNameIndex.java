@@ -0,0 +1,77 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Luiz Otávio
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.teamdiluvian.wakacraft.persistent.cache;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Bounded, least recently used index from player name to unique id, ignoring case.
+ *
+ * @author TeamDiluvian
+ * @since 18/10/2026
+ */
+public class WakaNameIndex {
+
+    private final Map<String, UUID> uniqueIds;
+
+    public WakaNameIndex(int maximumSize) {
+        uniqueIds = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, UUID> eldest) {
+                return size() > maximumSize;
+            }
+        };
+    }
+
+    public synchronized @Nullable UUID get(@NotNull String name) {
+        return uniqueIds.get(key(name));
+    }
+
+    public synchronized void put(@NotNull String name, @NotNull UUID uniqueId) {
+        uniqueIds.put(key(name), uniqueId);
+    }
+
+    /**
+     * Removes a name, as long as it still points to the given player.
+     */
+    public synchronized void remove(@NotNull String name, @NotNull UUID uniqueId) {
+        uniqueIds.remove(key(name), uniqueId);
+    }
+
+    public synchronized int size() {
+        return uniqueIds.size();
+    }
+
+    private @NotNull String key(@NotNull String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Luiz Otávio
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.teamdiluvian.wakacraft.persistent.cache;
+
+import com.teamdiluvian.wakacraft.model.WakaPlayer;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bounded read-through cache of loaded players, keyed by unique id and by name.
+ *
+ * @author TeamDiluvian
+ * @since 18/10/2026
+ */
+public class WakaPlayerCache {
+
+    private final WakaNameIndex nameIndex;
+    private final long expireAfterNanos;
+
+    private final Map<UUID, CachedPlayer> players;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public WakaPlayerCache(@NotNull WakaNameIndex nameIndex, int maximumSize, long expireAfter, @NotNull TimeUnit unit) {
+        this.nameIndex = nameIndex;
+        this.expireAfterNanos = unit.toNanos(expireAfter);
+
+        players = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, CachedPlayer> eldest) {
+                return size() > maximumSize;
+            }
+        };
+    }
+
+    public @Nullable WakaPlayer getIfPresent(@NotNull UUID uniqueId) {
+        WakaPlayer wakaPlayer = lookup(uniqueId);
+
+        if (wakaPlayer == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+
+        return wakaPlayer;
+    }
+
+    public @Nullable WakaPlayer getIfPresent(@NotNull String name) {
+        UUID uniqueId = nameIndex.get(name);
+        WakaPlayer wakaPlayer = uniqueId == null ? null : lookup(uniqueId);
+
+        // The index may still point to a player that has been renamed since
+        if (wakaPlayer == null || !name.equalsIgnoreCase(wakaPlayer.getPlayerName())) {
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        return wakaPlayer;
+    }
+
+    public synchronized void put(@NotNull WakaPlayer wakaPlayer) {
+        players.put(wakaPlayer.getUniqueId(), new CachedPlayer(wakaPlayer, System.nanoTime() + expireAfterNanos));
+    }
+
+    /**
+     * Replaces a cached player with an updated copy, without touching its expiry time.
+     * Nothing happens if the player is not cached.
+     */
+    public synchronized void update(@NotNull UUID uniqueId, @NotNull UnaryOperator<WakaPlayer> updater) {
+        CachedPlayer cachedPlayer = players.get(uniqueId);
+
+        if (cachedPlayer != null) {
+            players.put(uniqueId, new CachedPlayer(updater.apply(cachedPlayer.wakaPlayer), cachedPlayer.expiresAt));
+        }
+    }
+
+    public synchronized void invalidate(@NotNull UUID uniqueId) {
+        players.remove(uniqueId);
+    }
+
+    public synchronized int size() {
+        return players.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private synchronized @Nullable WakaPlayer lookup(@NotNull UUID uniqueId) {
+        CachedPlayer cachedPlayer = players.get(uniqueId);
+        if (cachedPlayer == null) {
+            return null;
+        }
+
+        if (System.nanoTime() - cachedPlayer.expiresAt >= 0) {
+            players.remove(uniqueId);
+            return null;
+        }
+
+        return cachedPlayer.wakaPlayer;
+    }
+
+    @RequiredArgsConstructor
+    private static class CachedPlayer {
+
+        private final WakaPlayer wakaPlayer;
+        private final long expiresAt;
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Luiz Otávio
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.teamdiluvian.wakacraft.persistent.cache;
+
+import com.teamdiluvian.wakacraft.persistent.WakaDatabase;
+import com.teamdiluvian.wakacraft.persistent.connector.WakaCircuitBreaker;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Holds dirty player state in memory and writes it to the database in batches.
+ *
+ * @author TeamDiluvian
+ * @since 18/10/2026
+ */
+public class WriteBehindWakaCache {
+
+    private final WakaDatabase wakaDatabase;
+    private final int batchSize;
+    private final Logger logger;
+
+    private final Map<UUID, PendingSave> pendingSaves = new ConcurrentHashMap<>();
+    private final Map<UUID, CompletableFuture<Void>> inFlightSaves = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushing = new AtomicBoolean();
+
+    private final ScheduledExecutorService scheduler;
+
+    private volatile boolean closed;
+
+    public WriteBehindWakaCache(@NotNull WakaDatabase wakaDatabase, long flushInterval, int batchSize,
+                                @NotNull Logger logger) {
+        this.wakaDatabase = wakaDatabase;
+        this.batchSize = batchSize;
+        this.logger = logger;
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable);
+
+            thread.setName("Wakacraft-WriteBehind");
+
+            return thread;
+        });
+
+        scheduler.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queues the measure time of a player, replacing any pending value for the same player.
+     *
+     * @return a future completed once the value (or a newer one) has been written
+     */
+    public @NotNull CompletableFuture<Void> enqueue(@NotNull UUID uniqueId, long measureTime) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Write-behind cache is closed"));
+        }
+
+        PendingSave pendingSave = pendingSaves.compute(uniqueId, (key, previous) -> previous == null ?
+            new PendingSave(key, measureTime, new CompletableFuture<>()) :
+            new PendingSave(key, measureTime, previous.getFuture())
+        );
+
+        if (pendingSaves.size() >= batchSize && !flushing.get()) {
+            try {
+                scheduler.execute(this::flush);
+            } catch (RejectedExecutionException ignored) {
+                // Closing, the pending save will be drained by close()
+            }
+        }
+
+        return pendingSave.getFuture();
+    }
+
+    /**
+     * @return the measure time waiting to be written for this player, or null if there is none
+     */
+    public @Nullable Long getPending(@NotNull UUID uniqueId) {
+        PendingSave pendingSave = pendingSaves.get(uniqueId);
+
+        return pendingSave == null ? null : pendingSave.getMeasureTime();
+    }
+
+    /**
+     * Drops the pending save of a player, used when the stored value is replaced by a reset.
+     *
+     * @return a future completed once no batch holding the player is being written anymore
+     */
+    public @NotNull CompletableFuture<Void> discard(@NotNull UUID uniqueId) {
+        PendingSave pendingSave = pendingSaves.remove(uniqueId);
+
+        if (pendingSave != null) {
+            pendingSave.getFuture().complete(null);
+        }
+
+        return inFlightSaves.getOrDefault(uniqueId, CompletableFuture.completedFuture(null));
+    }
+
+    public int size() {
+        return pendingSaves.size();
+    }
+
+    /**
+     * Writes every pending save, one batch at a time.
+     */
+    public void flush() {
+        if (!flushing.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            Batch batch;
+            while (!(batch = drain()).isEmpty()) {
+                try {
+                    write(batch).join();
+
+                    complete(batch, null);
+                } catch (Exception exception) {
+                    // The database is unreachable or overloaded, the saves are retried on the next flush
+                    if (WakaCircuitBreaker.isConnectionFailure(exception)
+                        || exception.getCause() instanceof RejectedExecutionException) {
+                        retain(batch);
+                        return;
+                    }
+
+                    complete(batch, exception);
+
+                    logger.log(Level.SEVERE, "Could not write " + batch.saves.size() + " buffered saves", exception);
+                }
+            }
+        } finally {
+            flushing.set(false);
+        }
+    }
+
+    /**
+     * Stops the flush timer and writes whatever is still pending, giving up once the timeout elapses.
+     */
+    public void close(long timeout, @NotNull TimeUnit unit) {
+        closed = true;
+
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        // A flush still running gets half of the timeout, the final drain keeps the rest
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(unit.toNanos(timeout) / 2, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+
+        Batch batch;
+        while (!(batch = drain()).isEmpty()) {
+            long remaining = deadline - System.nanoTime();
+
+            try {
+                if (remaining <= 0) {
+                    throw new IllegalStateException("Write-behind drain timed out");
+                }
+
+                write(batch).get(remaining, TimeUnit.NANOSECONDS);
+
+                complete(batch, null);
+            } catch (Exception exception) {
+                complete(batch, exception);
+
+                int lost = batch.saves.size() + pendingSaves.size();
+                pendingSaves.values().forEach(pendingSave -> pendingSave.getFuture().completeExceptionally(exception));
+                pendingSaves.clear();
+
+                logger.log(Level.SEVERE, "Could not drain the write-behind cache, " + lost + " saves were lost", exception);
+                return;
+            }
+        }
+    }
+
+    private @NotNull CompletableFuture<Void> write(@NotNull Batch batch) {
+        Map<UUID, Long> measureTimes = new LinkedHashMap<>();
+
+        for (PendingSave pendingSave : batch.saves) {
+            measureTimes.put(pendingSave.getUniqueId(), pendingSave.getMeasureTime());
+        }
+
+        CompletableFuture<Void> future;
+        try {
+            future = wakaDatabase.savePlayers(measureTimes);
+        } catch (Exception exception) {
+            future = CompletableFuture.failedFuture(exception);
+        }
+
+        return future.whenComplete((unused, throwable) -> {
+            for (PendingSave pendingSave : batch.saves) {
+                inFlightSaves.remove(pendingSave.getUniqueId(), batch.written);
+            }
+
+            batch.written.complete(null);
+        });
+    }
+
+    private @NotNull Batch drain() {
+        Batch batch = new Batch(new ArrayList<>(Math.min(batchSize, pendingSaves.size())), new CompletableFuture<>());
+
+        Iterator<UUID> iterator = pendingSaves.keySet().iterator();
+        while (batch.saves.size() < batchSize && iterator.hasNext()) {
+            UUID uniqueId = iterator.next();
+
+            // Marked in flight first, so a reset always finds the save in one place or the other
+            inFlightSaves.put(uniqueId, batch.written);
+            PendingSave pendingSave = pendingSaves.remove(uniqueId);
+
+            if (pendingSave != null) {
+                batch.saves.add(pendingSave);
+            } else {
+                inFlightSaves.remove(uniqueId, batch.written);
+            }
+        }
+
+        return batch;
+    }
+
+    /**
+     * Puts a batch that failed to be written back, unless newer saves were queued meanwhile.
+     */
+    private void retain(@NotNull Batch batch) {
+        for (PendingSave pendingSave : batch.saves) {
+            pendingSaves.merge(pendingSave.getUniqueId(), pendingSave, (newer, failed) -> {
+                newer.getFuture().whenComplete((unused, throwable) -> {
+                    if (throwable == null) {
+                        failed.getFuture().complete(null);
+                    } else {
+                        failed.getFuture().completeExceptionally(throwable);
+                    }
+                });
+
+                return newer;
+            });
+        }
+    }
+
+    private void complete(@NotNull Batch batch, @Nullable Throwable throwable) {
+        for (PendingSave pendingSave : batch.saves) {
+            if (throwable == null) {
+                pendingSave.getFuture().complete(null);
+            } else {
+                pendingSave.getFuture().completeExceptionally(throwable);
+            }
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Batch {
+
+        private final List<PendingSave> saves;
+
+        // Completed once the batch is written or failed
+        private final CompletableFuture<Void> written;
+
+        private boolean isEmpty() {
+            return saves.isEmpty();
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class PendingSave {
+
+        private final UUID uniqueId;
+        private final long measureTime;
+
+        private final CompletableFuture<Void> future;
+    }
+}
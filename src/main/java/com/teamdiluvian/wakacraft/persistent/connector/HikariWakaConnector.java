@@ -27,10 +27,16 @@ package com.teamdiluvian.wakacraft.persistent.connector;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
 import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.Nullable;
 
+import java.nio.file.Path;
 import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Luiz Otávio de Farias Corrêa
@@ -42,19 +48,166 @@ public class HikariWakaConnector  {
   private final Properties properties;
 
   private HikariDataSource dataSource;
+  private WakaCircuitBreaker circuitBreaker;
+
+  private HikariDataSource replicaDataSource;
+  private WakaCircuitBreaker replicaCircuitBreaker;
+
+  private MetricsTrackerFactory metricsTrackerFactory;
+
+  /**
+   * Creates a connector to an H2 database stored in the given directory, running in process with
+   * the MySQL compatibility mode. Only the plugin's own settings of the given properties are kept.
+   */
+  public static HikariWakaConnector embedded(Properties properties, Path directory) {
+    Properties embeddedProperties = new Properties();
+    properties.forEach((key, value) -> {
+      String name = key.toString();
+
+      if (name.startsWith("wakacraft.") || name.startsWith("redis.")) {
+        embeddedProperties.put(key, value);
+      }
+    });
+
+    embeddedProperties.setProperty("driverClassName", "org.h2.Driver");
+    embeddedProperties.setProperty("jdbcUrl", String.format(
+      "jdbc:h2:file:%s;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;IGNORECASE=TRUE",
+      directory.resolve("wakacraft").toAbsolutePath()
+    ));
+    embeddedProperties.setProperty("maximumPoolSize", properties.getProperty("wakacraft.embedded.poolSize", "4"));
+    embeddedProperties.setProperty("poolName", "Wakacraft");
+
+    return new HikariWakaConnector(embeddedProperties);
+  }
+
+  /**
+   * Creates a connector per shard, {@code wakacraft.shards} of them. The first shard uses the given
+   * settings, the others use them too except the ones given with their own prefix, like
+   * {@code shard.1.dataSource.serverName}. Replicas are never shared between shards.
+   */
+  public static List<HikariWakaConnector> sharded(Properties properties) {
+    int count = Integer.parseInt(properties.getProperty("wakacraft.shards", "1"));
+
+    List<HikariWakaConnector> connectors = new ArrayList<>(count);
+
+    for (int shard = 0; shard < count; shard++) {
+      String prefix = "shard." + shard + ".";
+
+      Properties shardProperties = new Properties();
+      Properties ownProperties = new Properties();
+
+      for (String name : properties.stringPropertyNames()) {
+        String value = properties.getProperty(name);
+
+        if (name.startsWith(prefix)) {
+          ownProperties.setProperty(name.substring(prefix.length()), value);
+        } else if (!name.startsWith("shard.") && (shard == 0 || !name.startsWith("replica."))) {
+          shardProperties.setProperty(name, value);
+        }
+      }
+
+      shardProperties.putAll(ownProperties);
+
+      if (!shardProperties.containsKey("poolName")) {
+        shardProperties.setProperty("poolName", shard == 0 ? "Wakacraft" : "Wakacraft-Shard-" + shard);
+      }
+
+      connectors.add(new HikariWakaConnector(shardProperties));
+    }
+
+    return connectors;
+  }
 
   public Properties getProperties() {
     return properties;
   }
 
+  /**
+   * @return the size of the pool once connected, the configured one before, Hikari's default being 10
+   */
+  public int getMaximumPoolSize() {
+    if (dataSource != null) {
+      return dataSource.getMaximumPoolSize();
+    }
+
+    return Integer.parseInt(properties.getProperty("maximumPoolSize", "10"));
+  }
+
+  public WakaCircuitBreaker getCircuitBreaker() {
+    return circuitBreaker;
+  }
+
+  /**
+   * Sets the tracker of the pools created once connected.
+   */
+  public void setMetricsTrackerFactory(MetricsTrackerFactory metricsTrackerFactory) {
+    this.metricsTrackerFactory = metricsTrackerFactory;
+  }
+
   public void connect() {
     if (dataSource != null) {
       throw new UnsupportedOperationException("Already connected");
     }
 
-    dataSource = new HikariDataSource(
-      new HikariConfig(properties)
+    // Hikari rejects unknown keys, so the plugin's own settings are left out
+    Properties hikariProperties = new Properties();
+    Properties replicaProperties = new Properties();
+
+    properties.forEach((key, value) -> {
+      String name = key.toString();
+
+      if (name.startsWith("replica.")) {
+        replicaProperties.put(name.substring("replica.".length()), value);
+      } else if (!name.startsWith("wakacraft.") && !name.startsWith("redis.")) {
+        hikariProperties.put(key, value);
+      }
+    });
+
+    circuitBreaker = new WakaCircuitBreaker(
+      Integer.parseInt(properties.getProperty("wakacraft.circuit.failureThreshold", "5")),
+      Long.parseLong(properties.getProperty("wakacraft.circuit.openDuration", "10000")),
+      TimeUnit.MILLISECONDS
     );
+
+    HikariConfig config = new HikariConfig(hikariProperties);
+    if (metricsTrackerFactory != null) {
+      config.setMetricsTrackerFactory(metricsTrackerFactory);
+    }
+
+    dataSource = new HikariDataSource(config);
+
+    // The replica shares the settings of the primary, except the ones given with the replica prefix
+    if (!replicaProperties.isEmpty()) {
+      Properties mergedProperties = new Properties();
+      mergedProperties.putAll(hikariProperties);
+      mergedProperties.putAll(replicaProperties);
+      mergedProperties.setProperty("readOnly", "true");
+      mergedProperties.setProperty("poolName", hikariProperties.getProperty("poolName", "Wakacraft") + "-Replica");
+
+      replicaCircuitBreaker = new WakaCircuitBreaker(
+        Integer.parseInt(properties.getProperty("wakacraft.circuit.failureThreshold", "5")),
+        Long.parseLong(properties.getProperty("wakacraft.circuit.openDuration", "10000")),
+        TimeUnit.MILLISECONDS
+      );
+
+      // Created without connecting, an unreachable replica must not prevent the plugin from starting
+      HikariConfig replicaConfig = new HikariConfig(mergedProperties);
+      replicaConfig.setInitializationFailTimeout(-1);
+
+      if (metricsTrackerFactory != null) {
+        replicaConfig.setMetricsTrackerFactory(metricsTrackerFactory);
+      }
+
+      replicaDataSource = new HikariDataSource(replicaConfig);
+    }
+  }
+
+  public boolean hasReplica() {
+    return replicaDataSource != null;
+  }
+
+  public @Nullable WakaCircuitBreaker getReplicaCircuitBreaker() {
+    return replicaCircuitBreaker;
   }
 
   public void disconnect() {
@@ -63,6 +216,10 @@ public class HikariWakaConnector  {
     }
 
     dataSource.close();
+
+    if (replicaDataSource != null) {
+      replicaDataSource.close();
+    }
   }
 
   public boolean isConnected() {
@@ -74,6 +231,47 @@ public class HikariWakaConnector  {
       throw new UnsupportedOperationException("Not connected");
     }
 
-    return dataSource.getConnection();
+    circuitBreaker.acquire();
+
+    try {
+      Connection connection = dataSource.getConnection();
+
+      // The query decides whether the database is healthy, the failures are counted by SQLWakaDatabase
+      circuitBreaker.recordConnected();
+
+      return connection;
+    } catch (Exception exception) {
+      circuitBreaker.recordFailure();
+
+      throw exception;
+    }
+  }
+
+  /**
+   * @return a read-only connection to the replica, or null if there is no replica or it cannot
+   * be reached right now, in which case reads go to the primary
+   */
+  public @Nullable Connection createReplicaConnection() {
+    if (replicaDataSource == null || !replicaDataSource.isRunning()) {
+      return null;
+    }
+
+    try {
+      replicaCircuitBreaker.acquire();
+    } catch (WakaCircuitOpenException exception) {
+      return null;
+    }
+
+    try {
+      Connection connection = replicaDataSource.getConnection();
+
+      replicaCircuitBreaker.recordSuccess();
+
+      return connection;
+    } catch (Exception exception) {
+      replicaCircuitBreaker.recordFailure();
+
+      return null;
+    }
   }
 }
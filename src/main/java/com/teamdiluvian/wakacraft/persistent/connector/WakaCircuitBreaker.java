@@ -0,0 +1,183 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Luiz Otávio
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.teamdiluvian.wakacraft.persistent.connector;
+
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Stops handing out connections for a while once the database keeps failing.
+ *
+ * @author TeamDiluvian
+ * @since 18/10/2026
+ */
+public class WakaCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final Status CLOSED = new Status(State.CLOSED, 0);
+
+    private final int failureThreshold;
+    private final long openDurationNanos;
+
+    private final AtomicInteger failures = new AtomicInteger();
+
+    // The state and the time it opened change together, a half-open circuit has its probe running
+    private final AtomicReference<Status> status = new AtomicReference<>(CLOSED);
+
+    public WakaCircuitBreaker(int failureThreshold, long openDuration, @NotNull TimeUnit unit) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = unit.toNanos(openDuration);
+    }
+
+    public @NotNull State getState() {
+        return status.get().state;
+    }
+
+    /**
+     * @return true while requests are refused without probing the database
+     */
+    public boolean isOpen() {
+        Status current = status.get();
+
+        return current.state == State.OPEN && System.nanoTime() - current.openedAt < openDurationNanos
+            || current.state == State.HALF_OPEN;
+    }
+
+    /**
+     * Lets a request through, or refuses it while the circuit is open.
+     *
+     * @throws WakaCircuitOpenException if the request is refused
+     */
+    public void acquire() throws WakaCircuitOpenException {
+        while (true) {
+            Status current = status.get();
+
+            if (current.state == State.CLOSED) {
+                return;
+            }
+
+            // Only one probe at a time, the others are refused until it completes
+            if (current.state == State.HALF_OPEN || System.nanoTime() - current.openedAt < openDurationNanos) {
+                throw new WakaCircuitOpenException();
+            }
+
+            if (status.compareAndSet(current, new Status(State.HALF_OPEN, current.openedAt))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Closes the circuit if this was the probe, without forgetting the failed queries.
+     */
+    public void recordConnected() {
+        Status current = status.get();
+
+        if (current.state == State.HALF_OPEN) {
+            status.compareAndSet(current, CLOSED);
+        }
+    }
+
+    public void recordSuccess() {
+        failures.set(0);
+
+        status.set(CLOSED);
+    }
+
+    public void recordFailure() {
+        Status current = status.get();
+
+        if (current.state == State.OPEN
+            || current.state == State.CLOSED && failures.incrementAndGet() < failureThreshold) {
+            return;
+        }
+
+        if (status.compareAndSet(current, new Status(State.OPEN, System.nanoTime()))) {
+            failures.set(0);
+        }
+    }
+
+    /**
+     * @return true if a query failed because the database is too slow or the connection was lost
+     * on the way, failing to get a connection at all is already recorded by the connector
+     */
+    public static boolean isQueryFailure(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTimeoutException) {
+                return true;
+            }
+
+            if (cause instanceof SQLTransientConnectionException) {
+                return false;
+            }
+        }
+
+        return isConnectionFailure(throwable);
+    }
+
+    /**
+     * @return true if the throwable, or one of its causes, means the database could not be reached
+     */
+    public static boolean isConnectionFailure(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientConnectionException
+                || cause instanceof SQLNonTransientConnectionException
+                || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+
+            // SQL state class 08 is "connection exception"
+            if (cause instanceof SQLException) {
+                String sqlState = ((SQLException) cause).getSQLState();
+
+                if (sqlState != null && sqlState.startsWith("08")) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    @RequiredArgsConstructor
+    private static class Status {
+
+        private final State state;
+        private final long openedAt;
+    }
+}
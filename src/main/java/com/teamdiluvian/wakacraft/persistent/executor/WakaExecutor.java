@@ -0,0 +1,370 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Luiz Otávio
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.teamdiluvian.wakacraft.persistent.executor;
+
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs the database operations on a bounded queue where writes go before reads.
+ *
+ * @author TeamDiluvian
+ * @since 18/10/2026
+ */
+public class WakaExecutor extends AbstractExecutorService {
+
+    public enum Mode {
+        FIXED, VIRTUAL
+    }
+
+    public enum Priority {
+        WRITE, READ
+    }
+
+    private final Mode mode;
+    private final int poolSize;
+
+    private final int capacity;
+    private final int readCapacity;
+
+    private final PriorityBlockingQueue<PrioritizedTask> queue = new PriorityBlockingQueue<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final Semaphore permits;
+    private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger active = new AtomicInteger();
+
+    private final LongAdder rejectedReads = new LongAdder();
+    private final LongAdder rejectedWrites = new LongAdder();
+
+    private final Executor readExecutor = command -> execute(command, Priority.READ);
+    private final Executor writeExecutor = command -> execute(command, Priority.WRITE);
+
+    private final ThreadFactory threadFactory;
+    private final Logger logger;
+
+    private volatile boolean shutdown;
+
+    public WakaExecutor(@NotNull Mode mode, int poolSize, int capacity, int readCapacity, @NotNull Logger logger) {
+        this.logger = logger;
+
+        ThreadFactory virtualFactory = mode == Mode.VIRTUAL ? createVirtualFactory() : null;
+
+        if (mode == Mode.VIRTUAL && virtualFactory == null) {
+            logger.warning("Virtual threads are not available on this Java version, using a fixed pool instead");
+            mode = Mode.FIXED;
+        }
+
+        this.mode = mode;
+        this.poolSize = poolSize;
+        this.capacity = capacity;
+        this.readCapacity = Math.min(readCapacity, capacity);
+        this.permits = new Semaphore(poolSize);
+
+        if (mode == Mode.FIXED) {
+            AtomicInteger counter = new AtomicInteger();
+
+            threadFactory = runnable -> {
+                Thread thread = new Thread(runnable);
+
+                thread.setName("Wakacraft-Thread-" + counter.incrementAndGet());
+
+                return thread;
+            };
+
+            for (int index = 0; index < poolSize; index++) {
+                start(this::work);
+            }
+        } else {
+            threadFactory = virtualFactory;
+
+            start(this::dispatch);
+        }
+    }
+
+    public @NotNull Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return an executor submitting every operation with the given priority
+     */
+    public @NotNull Executor withPriority(@NotNull Priority priority) {
+        return priority == Priority.READ ? readExecutor : writeExecutor;
+    }
+
+    /**
+     * @return how many operations are waiting for a thread or a permit
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * @return how many operations are running right now
+     */
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    public long getRejectedReads() {
+        return rejectedReads.sum();
+    }
+
+    public long getRejectedWrites() {
+        return rejectedWrites.sum();
+    }
+
+    /**
+     * Submits a write.
+     */
+    @Override
+    public void execute(@NotNull Runnable command) {
+        execute(command, Priority.WRITE);
+    }
+
+    public void execute(@NotNull Runnable command, @NotNull Priority priority) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Executor has been shut down");
+        }
+
+        // The size check is racy, so the bounds may be exceeded by a few concurrent submissions
+        int depth = queue.size();
+
+        if (priority == Priority.READ && depth >= readCapacity) {
+            rejectedReads.increment();
+            throw new RejectedExecutionException("Too many pending reads (" + depth + ")");
+        }
+
+        if (depth >= capacity) {
+            rejectedWrites.increment();
+            throw new RejectedExecutionException("Too many pending writes (" + depth + ")");
+        }
+
+        queue.add(new PrioritizedTask(priority, sequence.getAndIncrement(), command));
+    }
+
+    @Override
+    public void shutdown() {
+        // Nothing is interrupted, an operation may be in the middle of a JDBC call. Idle workers
+        // poll the queue every second and exit once it is empty
+        shutdown = true;
+    }
+
+    @Override
+    public @NotNull List<Runnable> shutdownNow() {
+        shutdown = true;
+
+        List<PrioritizedTask> tasks = new ArrayList<>();
+        queue.drainTo(tasks);
+
+        threads.forEach(Thread::interrupt);
+
+        List<Runnable> commands = new ArrayList<>(tasks.size());
+        tasks.forEach(task -> commands.add(task.command));
+
+        return commands;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && threads.isEmpty();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, @NotNull TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        synchronized (threads) {
+            while (!isTerminated()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+
+                TimeUnit.NANOSECONDS.timedWait(threads, remaining);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Worker loop of the fixed mode, every thread runs one operation at a time.
+     */
+    private void work() {
+        PrioritizedTask task;
+
+        while ((task = next()) != null) {
+            run(task);
+        }
+    }
+
+    /**
+     * Dispatcher loop of the virtual mode, starts one virtual thread per operation
+     * as soon as a permit is available.
+     */
+    private void dispatch() {
+        while (true) {
+            try {
+                permits.acquire();
+            } catch (InterruptedException exception) {
+                if (shutdown && queue.isEmpty()) {
+                    return;
+                }
+
+                continue;
+            }
+
+            PrioritizedTask task = next();
+            if (task == null) {
+                permits.release();
+                return;
+            }
+
+            start(() -> {
+                try {
+                    run(task);
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+    }
+
+    /**
+     * @return the next operation, or null once the executor is shut down and drained
+     */
+    private PrioritizedTask next() {
+        while (true) {
+            PrioritizedTask task = queue.poll();
+            if (task != null) {
+                return task;
+            }
+
+            if (shutdown) {
+                return null;
+            }
+
+            try {
+                task = queue.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {
+                // Checks the shutdown flag again
+                continue;
+            }
+
+            if (task != null) {
+                return task;
+            }
+        }
+    }
+
+    private void run(@NotNull PrioritizedTask task) {
+        active.incrementAndGet();
+
+        try {
+            task.command.run();
+        } catch (Throwable throwable) {
+            logger.log(Level.SEVERE, "A database operation failed", throwable);
+        } finally {
+            active.decrementAndGet();
+        }
+    }
+
+    private void start(@NotNull Runnable runnable) {
+        Thread thread = threadFactory.newThread(() -> {
+            try {
+                runnable.run();
+            } finally {
+                threads.remove(Thread.currentThread());
+
+                synchronized (threads) {
+                    threads.notifyAll();
+                }
+            }
+        });
+
+        threads.add(thread);
+        thread.start();
+    }
+
+    /**
+     * Builds a virtual thread factory through reflection, so the plugin still runs on
+     * Java versions without virtual threads.
+     *
+     * @return the factory, or null if virtual threads are not available
+     */
+    private static ThreadFactory createVirtualFactory() {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class)
+                .invoke(builder, "Wakacraft-Virtual-", 1L);
+
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException exception) {
+            return null;
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class PrioritizedTask implements Comparable<PrioritizedTask> {
+
+        private final Priority priority;
+        private final long sequence;
+        private final Runnable command;
+
+        @Override
+        public int compareTo(@NotNull PrioritizedTask other) {
+            int compare = priority.compareTo(other.priority);
+
+            return compare != 0 ? compare : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,503 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Luiz Otávio
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.teamdiluvian.wakacraft.persistent.journal;
+
+import com.teamdiluvian.wakacraft.model.WakaPlayer;
+import com.teamdiluvian.wakacraft.persistent.WakaDatabase;
+import com.teamdiluvian.wakacraft.persistent.connector.WakaCircuitBreaker;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of the player events, replayed to the database after an outage or a crash.
+ *
+ * @author TeamDiluvian
+ * @since 18/10/2026
+ */
+public class WakaJournal {
+
+    private final WakaDatabase wakaDatabase;
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final int maxSegments;
+    private final long replayDelay;
+    private final int batchSize;
+    private final Logger logger;
+
+    private final NavigableMap<Long, WakaJournalSegment> segments = new TreeMap<>();
+    private final NavigableMap<Long, Entry> unconfirmed = new TreeMap<>();
+    private final Map<Object, NavigableSet<Long>> sequencesByKey = new HashMap<>();
+
+    private final ScheduledExecutorService scheduler;
+
+    private WakaJournalSegment activeSegment;
+    private long sequence;
+
+    public WakaJournal(@NotNull WakaDatabase wakaDatabase, @NotNull Path directory, int segmentRecords, int maxSegments,
+                       long replayInterval, long replayDelay, int batchSize, @NotNull Logger logger) {
+        this.wakaDatabase = wakaDatabase;
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        this.maxSegments = maxSegments;
+        this.replayDelay = replayDelay;
+        this.batchSize = batchSize;
+        this.logger = logger;
+
+        try {
+            Files.createDirectories(directory);
+
+            recover();
+
+            activeSegment = WakaJournalSegment.open(
+                directory,
+                segments.isEmpty() ? 1 : segments.lastKey() + 1,
+                segmentRecords
+            );
+            segments.put(activeSegment.getId(), activeSegment);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable);
+
+            thread.setName("Wakacraft-Journal");
+
+            return thread;
+        });
+
+        scheduler.scheduleWithFixedDelay(this::replay, replayInterval, replayInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Appends an event. This is a few writes to mapped memory, cheap enough for the event threads.
+     *
+     * @param uniqueId the player, or null for events only known by name
+     * @return the sequence of the event, to be confirmed once the database has it, or -1 if it could not be written
+     */
+    public synchronized long append(@NotNull WakaJournalRecord.Type type, @Nullable UUID uniqueId,
+                                    @Nullable String name, long measureTime) {
+        if (uniqueId == null && name == null) {
+            return -1;
+        }
+
+        WakaJournalRecord record = new WakaJournalRecord(
+            type, ++sequence,
+            uniqueId, name,
+            measureTime, System.currentTimeMillis()
+        );
+
+        try {
+            write(record);
+        } catch (IOException exception) {
+            logger.log(Level.SEVERE, "Could not write a journal event", exception);
+            return -1;
+        }
+
+        sequencesByKey.computeIfAbsent(record.getKey(), key -> new TreeSet<>())
+            .add(record.getSequence());
+
+        return record.getSequence();
+    }
+
+    /**
+     * Confirms the event once the future completes successfully.
+     *
+     * @return the given future
+     */
+    public <T> @NotNull CompletableFuture<T> confirmOnSuccess(long sequence, @NotNull CompletableFuture<T> future) {
+        if (sequence < 0) {
+            return future;
+        }
+
+        future.whenComplete((unused, throwable) -> {
+            if (throwable == null) {
+                confirm(sequence);
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Marks an event as written, along with the older events of the same player it supersedes.
+     * A connect only supersedes older connects, since it is what creates the row and says nothing
+     * about the measure time. A disconnect, set or reset supersedes the older ones of those, which
+     * its own write overwrites.
+     */
+    public synchronized void confirm(long sequence) {
+        Entry entry = unconfirmed.get(sequence);
+        if (entry == null) {
+            return;
+        }
+
+        WakaJournalRecord record = entry.record;
+        NavigableSet<Long> sequences = sequencesByKey.get(record.getKey());
+
+        Iterator<Long> iterator = sequences.headSet(sequence, true).iterator();
+        while (iterator.hasNext()) {
+            Entry older = unconfirmed.get(iterator.next());
+            if (older == null) {
+                iterator.remove();
+                continue;
+            }
+
+            boolean superseded = (older.record.getType() == WakaJournalRecord.Type.CONNECT)
+                == (record.getType() == WakaJournalRecord.Type.CONNECT);
+
+            if (superseded) {
+                iterator.remove();
+                release(older);
+            }
+        }
+
+        if (sequences.isEmpty()) {
+            sequencesByKey.remove(record.getKey());
+        }
+
+        deleteDrained();
+    }
+
+    public synchronized int getUnconfirmed() {
+        return unconfirmed.size();
+    }
+
+    public synchronized int getSegments() {
+        return segments.size();
+    }
+
+    /**
+     * Replays the events that stayed unconfirmed for longer than the replay delay, if the database is reachable.
+     */
+    public void replay() {
+        if (wakaDatabase.getCircuitBreaker().isOpen()) {
+            return;
+        }
+
+        List<WakaJournalRecord> records = new ArrayList<>();
+        long deadline = System.currentTimeMillis() - replayDelay;
+
+        synchronized (this) {
+            for (Entry entry : unconfirmed.values()) {
+                if (records.size() >= batchSize || entry.record.getTimestamp() > deadline) {
+                    break;
+                }
+
+                records.add(entry.record);
+            }
+        }
+
+        if (records.isEmpty()) {
+            return;
+        }
+
+        Map<Object, ReplayState> states = new LinkedHashMap<>();
+        for (WakaJournalRecord record : records) {
+            states.computeIfAbsent(record.getKey(), key -> new ReplayState(record.getUniqueId()))
+                .apply(record);
+        }
+
+        // Players with a save waiting in the write-behind cache are left to it, it holds a newer value.
+        // Saves already being written are covered by replaying the measure times only if newer
+        states.values().removeIf(state -> state.uniqueId != null
+            && wakaDatabase.getWriteBehindCache().getPending(state.uniqueId) != null);
+
+        try {
+            apply(states.values());
+        } catch (Exception exception) {
+            if (!WakaCircuitBreaker.isConnectionFailure(exception)) {
+                logger.log(Level.SEVERE, "Could not replay the journal", exception);
+            }
+
+            return;
+        }
+
+        for (ReplayState state : states.values()) {
+            state.sequences.forEach(this::confirm);
+        }
+    }
+
+    /**
+     * Stops replaying and flushes every segment to disk, pending events are replayed on the next start.
+     */
+    public void close(long timeout, @NotNull TimeUnit unit) {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(timeout, unit);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (this) {
+            for (WakaJournalSegment segment : segments.values()) {
+                try {
+                    segment.close();
+                } catch (IOException exception) {
+                    logger.log(Level.SEVERE, "Could not close a journal segment", exception);
+                }
+            }
+        }
+    }
+
+    private void apply(@NotNull Iterable<ReplayState> states) {
+        List<WakaPlayer> connects = new ArrayList<>();
+        Map<UUID, Long> measureTimes = new LinkedHashMap<>();
+
+        for (ReplayState state : states) {
+            if (state.connectTime != null && state.uniqueId != null) {
+                connects.add(WakaPlayer.of(state.uniqueId, state.name, state.connectTime, state.connectTime));
+            }
+        }
+
+        if (!connects.isEmpty()) {
+            wakaDatabase.createPlayers(connects).join();
+        }
+
+        for (ReplayState state : states) {
+            if (state.reset) {
+                wakaDatabase.resetPlayer(state.uniqueId, state.name).join();
+            }
+
+            if (state.measureTime == null) {
+                continue;
+            }
+
+            if (state.uniqueId != null) {
+                measureTimes.put(state.uniqueId, state.measureTime);
+            } else {
+                wakaDatabase.savePlayer(null, state.name, state.measureTime).join();
+            }
+        }
+
+        if (!measureTimes.isEmpty()) {
+            wakaDatabase.savePlayersIfNewer(measureTimes).join();
+        }
+    }
+
+    private void write(@NotNull WakaJournalRecord record) throws IOException {
+        int slot = activeSegment.append(record);
+
+        if (slot < 0) {
+            rotate();
+
+            slot = activeSegment.append(record);
+        }
+
+        unconfirmed.put(record.getSequence(), new Entry(record, activeSegment, slot));
+    }
+
+    private void release(@NotNull Entry entry) {
+        unconfirmed.remove(entry.record.getSequence());
+
+        entry.segment.confirm(entry.slot);
+    }
+
+    private void rotate() throws IOException {
+        WakaJournalSegment rotated = activeSegment;
+
+        // Flushed to disk by the journal thread, appending stays a write to mapped memory
+        try {
+            scheduler.execute(rotated::force);
+        } catch (RejectedExecutionException ignored) {
+            // Closing, close() flushes every segment
+        }
+
+        activeSegment = WakaJournalSegment.open(directory, rotated.getId() + 1, segmentRecords);
+        segments.put(activeSegment.getId(), activeSegment);
+
+        deleteDrained();
+        compact();
+    }
+
+    /**
+     * Moves the pending events of the oldest segments to the active one, keeping their sequence.
+     */
+    private void compact() {
+        while (segments.size() > maxSegments) {
+            WakaJournalSegment oldest = segments.firstEntry().getValue();
+
+            List<Entry> entries = new ArrayList<>();
+            for (Entry entry : unconfirmed.values()) {
+                if (entry.segment == oldest) {
+                    entries.add(entry);
+                }
+            }
+
+            if (oldest == activeSegment || entries.size() > activeSegment.getRemaining()) {
+                return;
+            }
+
+            for (Entry entry : entries) {
+                int slot = activeSegment.append(entry.record);
+
+                entry.segment.confirm(entry.slot);
+                unconfirmed.put(entry.record.getSequence(), new Entry(entry.record, activeSegment, slot));
+            }
+
+            deleteDrained();
+        }
+    }
+
+    private void deleteDrained() {
+        Iterator<WakaJournalSegment> iterator = segments.values().iterator();
+
+        while (iterator.hasNext()) {
+            WakaJournalSegment segment = iterator.next();
+
+            if (segment == activeSegment || !segment.isDrained()) {
+                continue;
+            }
+
+            try {
+                segment.delete();
+            } catch (IOException exception) {
+                logger.log(Level.WARNING, "Could not delete a journal segment", exception);
+            }
+
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Loads the pending events left by the previous run. Compaction may have left a copy of an
+     * event in two segments, only the newest copy is kept.
+     */
+    private void recover() throws IOException {
+        List<Long> ids = new ArrayList<>();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                String name = file.getFileName().toString();
+
+                if (name.startsWith("segment-") && name.endsWith(".journal")) {
+                    ids.add(Long.parseLong(name.substring(8, name.length() - 8)));
+                }
+            });
+        }
+
+        ids.sort(null);
+
+        for (long id : ids) {
+            WakaJournalSegment segment = WakaJournalSegment.open(directory, id, segmentRecords);
+            segments.put(id, segment);
+
+            List<Integer> slots = new ArrayList<>();
+            List<WakaJournalRecord> records = segment.recover(slots);
+
+            sequence = Math.max(sequence, segment.getLastSequence());
+
+            for (int index = 0; index < records.size(); index++) {
+                WakaJournalRecord record = records.get(index);
+
+                Entry previous = unconfirmed.put(record.getSequence(), new Entry(record, segment, slots.get(index)));
+                if (previous != null) {
+                    previous.segment.confirm(previous.slot);
+                }
+
+                sequencesByKey.computeIfAbsent(record.getKey(), key -> new TreeSet<>())
+                    .add(record.getSequence());
+            }
+        }
+
+        deleteDrained();
+
+        if (!unconfirmed.isEmpty()) {
+            logger.info("Recovered " + unconfirmed.size() + " journal events, they will be replayed once the database is reachable");
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Entry {
+
+        private final WakaJournalRecord record;
+        private final WakaJournalSegment segment;
+        private final int slot;
+    }
+
+    /**
+     * The state of one player after applying its pending events in order.
+     */
+    @RequiredArgsConstructor
+    private static class ReplayState {
+
+        private final UUID uniqueId;
+        private final List<Long> sequences = new ArrayList<>();
+
+        private String name;
+        private Long connectTime;
+        private Long measureTime;
+        private boolean reset;
+
+        private void apply(@NotNull WakaJournalRecord record) {
+            sequences.add(record.getSequence());
+
+            if (record.getPlayerName() != null) {
+                name = record.getPlayerName();
+            }
+
+            switch (record.getType()) {
+                case CONNECT:
+                    if (connectTime == null) {
+                        connectTime = record.getMeasureTime();
+                    }
+                    break;
+                case DISCONNECT:
+                case SET:
+                    measureTime = record.getMeasureTime();
+                    break;
+                case RESET:
+                    reset = true;
+                    measureTime = null;
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Luiz Otávio
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.teamdiluvian.wakacraft.persistent.journal;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * One event of the {@link WakaJournal}, stored as a fixed-size binary record.
+ *
+ * @author TeamDiluvian
+ * @since 18/10/2026
+ */
+@Getter
+@RequiredArgsConstructor
+public class WakaJournalRecord {
+
+    public enum Type {
+
+        CONNECT, DISCONNECT, SET, RESET;
+
+        private static final Type[] VALUES = values();
+
+        /**
+         * @return the type stored in the record header, zero is an empty slot
+         */
+        public byte getId() {
+            return (byte) (ordinal() + 1);
+        }
+
+        public static @Nullable Type fromId(int id) {
+            return id < 1 || id > VALUES.length ? null : VALUES[id - 1];
+        }
+    }
+
+    private final Type type;
+    private final long sequence;
+
+    private final @Nullable UUID uniqueId;
+    private final @Nullable String playerName;
+
+    private final long measureTime;
+    private final long timestamp;
+
+    /**
+     * @return the unique id of the player or, for records written by name only, its lowercase name
+     */
+    public @NotNull Object getKey() {
+        return uniqueId != null ? uniqueId : playerName.toLowerCase(Locale.ROOT);
+    }
+}
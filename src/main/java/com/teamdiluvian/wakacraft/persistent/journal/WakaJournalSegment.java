@@ -0,0 +1,220 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Luiz Otávio
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.teamdiluvian.wakacraft.persistent.journal;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A memory mapped journal file of {@code capacity} records, guarded by the journal's lock.
+ *
+ * @author TeamDiluvian
+ * @since 18/10/2026
+ */
+class WakaJournalSegment {
+
+    // Type (written last, so a torn record reads as empty), 7 reserved bytes, sequence,
+    // unique id, measure time, timestamp and the zero padded ASCII name
+    static final int RECORD_SIZE = 64;
+
+    // High bit of the type byte
+    private static final int CONFIRMED = 0x80;
+    private static final int NAME_LENGTH = 16;
+
+    private final long id;
+    private final Path path;
+    private final int capacity;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    private int size;
+    private int confirmed;
+    private long lastSequence;
+
+    private WakaJournalSegment(long id, @NotNull Path path, int capacity) throws IOException {
+        this.id = id;
+        this.path = path;
+        this.capacity = capacity;
+
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * RECORD_SIZE);
+    }
+
+    static @NotNull WakaJournalSegment open(@NotNull Path directory, long id, int capacity) throws IOException {
+        return new WakaJournalSegment(id, directory.resolve(fileName(id)), capacity);
+    }
+
+    static @NotNull String fileName(long id) {
+        return String.format("segment-%016d.journal", id);
+    }
+
+    long getId() {
+        return id;
+    }
+
+    boolean isFull() {
+        return size == capacity;
+    }
+
+    int getRemaining() {
+        return capacity - size;
+    }
+
+    /**
+     * @return the highest sequence read by {@link #recover(List)}
+     */
+    long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * @return true once every record written to this segment has been confirmed
+     */
+    boolean isDrained() {
+        return confirmed == size;
+    }
+
+    /**
+     * @return the slot of the record, or -1 if the segment is full
+     */
+    int append(@NotNull WakaJournalRecord record) {
+        if (isFull()) {
+            return -1;
+        }
+
+        int offset = size * RECORD_SIZE;
+        UUID uniqueId = record.getUniqueId();
+
+        buffer.putLong(offset + 8, record.getSequence());
+        buffer.putLong(offset + 16, uniqueId == null ? 0 : uniqueId.getMostSignificantBits());
+        buffer.putLong(offset + 24, uniqueId == null ? 0 : uniqueId.getLeastSignificantBits());
+        buffer.putLong(offset + 32, record.getMeasureTime());
+        buffer.putLong(offset + 40, record.getTimestamp());
+
+        byte[] name = record.getPlayerName() == null ? new byte[0] :
+            record.getPlayerName().getBytes(StandardCharsets.US_ASCII);
+
+        for (int index = 0; index < NAME_LENGTH; index++) {
+            buffer.put(offset + 48 + index, index < name.length ? name[index] : 0);
+        }
+
+        buffer.put(offset, record.getType().getId());
+
+        return size++;
+    }
+
+    void confirm(int slot) {
+        int offset = slot * RECORD_SIZE;
+
+        buffer.put(offset, (byte) (buffer.get(offset) | CONFIRMED));
+        confirmed++;
+    }
+
+    /**
+     * Reads every record written before the segment was last closed, counting the confirmed ones.
+     *
+     * @return the records that are not confirmed yet, the slot of record {@code i} is {@code slots[i]}
+     */
+    @NotNull List<WakaJournalRecord> recover(@NotNull List<Integer> slots) {
+        List<WakaJournalRecord> records = new ArrayList<>();
+
+        while (size < capacity) {
+            int offset = size * RECORD_SIZE;
+            int header = buffer.get(offset) & 0xFF;
+
+            WakaJournalRecord.Type type = WakaJournalRecord.Type.fromId(header & ~CONFIRMED);
+            if (type == null) {
+                break;
+            }
+
+            lastSequence = Math.max(lastSequence, buffer.getLong(offset + 8));
+
+            if ((header & CONFIRMED) != 0) {
+                confirmed++;
+            } else {
+                records.add(read(offset, type));
+                slots.add(size);
+            }
+
+            size++;
+        }
+
+        return records;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    /**
+     * Closes and deletes the file, the mapping itself is released once it is garbage collected.
+     */
+    void delete() throws IOException {
+        channel.close();
+
+        Files.deleteIfExists(path);
+    }
+
+    private @NotNull WakaJournalRecord read(int offset, @NotNull WakaJournalRecord.Type type) {
+        long mostSignificantBits = buffer.getLong(offset + 16);
+        long leastSignificantBits = buffer.getLong(offset + 24);
+
+        int length = 0;
+        while (length < NAME_LENGTH && buffer.get(offset + 48 + length) != 0) {
+            length++;
+        }
+
+        byte[] name = new byte[length];
+        for (int index = 0; index < length; index++) {
+            name[index] = buffer.get(offset + 48 + index);
+        }
+
+        return new WakaJournalRecord(
+            type,
+            buffer.getLong(offset + 8),
+            mostSignificantBits == 0 && leastSignificantBits == 0 ? null : new UUID(mostSignificantBits, leastSignificantBits),
+            length == 0 ? null : new String(name, StandardCharsets.US_ASCII),
+            buffer.getLong(offset + 32),
+            buffer.getLong(offset + 40)
+        );
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Luiz Otávio
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.teamdiluvian.wakacraft.persistent.migration;
+
+import com.teamdiluvian.wakacraft.util.TextReader;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts the {@code CHAR(36)} unique ids of older tables to {@code BINARY(16)} in resumable chunks.
+ *
+ * @author TeamDiluvian
+ * @since 18/10/2026
+ */
+public class WakaBinaryIdMigration implements WakaMigration {
+
+    private static final Map<String, String> PRIMARY_KEYS = new LinkedHashMap<>();
+
+    static {
+        PRIMARY_KEYS.put("waka_craft_time", "unique_id");
+        PRIMARY_KEYS.put("waka_craft_server_time", "unique_id, server_name");
+        PRIMARY_KEYS.put("waka_craft_hourly", "unique_id, bucket_hour");
+        PRIMARY_KEYS.put("waka_craft_daily", "unique_id, bucket_day");
+    }
+
+    private final TextReader textReader;
+    private final int chunkSize;
+
+    public WakaBinaryIdMigration(@NotNull TextReader textReader, int chunkSize) {
+        this.textReader = textReader;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public int getVersion() {
+        return 3;
+    }
+
+    @Override
+    public @NotNull String getDescription() {
+        return "store unique ids as binary";
+    }
+
+    @Override
+    public @Nullable String migrate(@NotNull Connection connection, @Nullable String checkpoint) throws Exception {
+        List<String> tables = new ArrayList<>(PRIMARY_KEYS.keySet());
+
+        int separator = checkpoint == null ? -1 : checkpoint.indexOf(':');
+
+        int tableIndex = separator < 0 ? 0 : tables.indexOf(checkpoint.substring(0, separator));
+        String cursor = separator < 0 ? "" : checkpoint.substring(separator + 1);
+
+        for (; tableIndex < tables.size(); tableIndex++, cursor = "") {
+            String table = tables.get(tableIndex);
+
+            if (!storesText(connection, table)) {
+                continue;
+            }
+
+            String last = fill(connection, table, cursor);
+            if (last != null) {
+                return table + ":" + last;
+            }
+
+            swap(connection, table, PRIMARY_KEYS.get(table));
+        }
+
+        return null;
+    }
+
+    /**
+     * Fills the binary column of the next chunk of unique ids after the cursor.
+     *
+     * @return the last unique id filled, or null if there were none left
+     */
+    private @Nullable String fill(@NotNull Connection connection, @NotNull String table, @NotNull String cursor) throws Exception {
+        if (columnType(connection, table, "unique_bin") == null) {
+            connection.createStatement().execute(String.format(textReader.getSql("add_wakacraft_binary_id"), table));
+        }
+
+        PreparedStatement chunkStatement = connection.prepareStatement(
+            String.format(textReader.getSql("retrieve_wakacraft_binary_id_chunk"), table)
+        );
+
+        chunkStatement.setString(1, cursor);
+        chunkStatement.setInt(2, chunkSize);
+
+        String last;
+        try (ResultSet resultSet = chunkStatement.executeQuery()) {
+            last = resultSet.next() ? resultSet.getString(1) : null;
+        }
+
+        if (last == null) {
+            return null;
+        }
+
+        PreparedStatement fillStatement = connection.prepareStatement(
+            String.format(textReader.getSql("fill_wakacraft_binary_id"), table)
+        );
+
+        fillStatement.setString(1, cursor);
+        fillStatement.setString(2, last);
+
+        fillStatement.executeUpdate();
+
+        return last;
+    }
+
+    private void swap(@NotNull Connection connection, @NotNull String table, @NotNull String primaryKey) throws Exception {
+        Statement statement = connection.createStatement();
+
+        // Rows inserted by proxies still running the previous version while the chunks were filled
+        statement.executeUpdate(String.format(textReader.getSql("fill_wakacraft_binary_id_remaining"), table));
+
+        statement.execute(String.format(textReader.getSql("swap_wakacraft_binary_id"), table, primaryKey));
+    }
+
+    private boolean storesText(@NotNull Connection connection, @NotNull String table) throws Exception {
+        Integer idType = columnType(connection, table, "unique_id");
+
+        return idType != null && idType != Types.BINARY && idType != Types.VARBINARY;
+    }
+
+    private @Nullable Integer columnType(@NotNull Connection connection, @NotNull String table, @NotNull String column) throws Exception {
+        DatabaseMetaData metaData = connection.getMetaData();
+
+        if (metaData.storesUpperCaseIdentifiers()) {
+            table = table.toUpperCase();
+            column = column.toUpperCase();
+        }
+
+        try (ResultSet resultSet = metaData.getColumns(connection.getCatalog(), null, table, column)) {
+            return resultSet.next() ? resultSet.getInt("DATA_TYPE") : null;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Luiz Otávio
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.teamdiluvian.wakacraft.persistent.migration;
+
+import com.teamdiluvian.wakacraft.util.TextReader;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Brings the schema up to date, applying every migration newer than the stored version in order.
+ *
+ * @author TeamDiluvian
+ * @since 18/10/2026
+ */
+public class WakaMigrationRunner {
+
+    private static final Pattern SCRIPT_NAME = Pattern.compile("migrations/V(\\d+)__(.+)");
+
+    private final TextReader textReader;
+    private final boolean mysql;
+    private final int lockTimeout;
+    private final Logger logger;
+
+    private final Map<Integer, WakaMigration> migrations = new HashMap<>();
+
+    /**
+     * @param lockTimeout how long to wait for another proxy to finish migrating, in seconds
+     */
+    public WakaMigrationRunner(@NotNull TextReader textReader, boolean mysql, int lockTimeout, @NotNull Logger logger) {
+        this.textReader = textReader;
+        this.mysql = mysql;
+        this.lockTimeout = lockTimeout;
+        this.logger = logger;
+
+        for (String name : textReader.getNames()) {
+            Matcher matcher = SCRIPT_NAME.matcher(name);
+
+            if (matcher.matches()) {
+                register(new WakaScriptMigration(
+                    Integer.parseInt(matcher.group(1)),
+                    matcher.group(2).replace('_', ' '),
+                    textReader.getSql(name)
+                ));
+            }
+        }
+    }
+
+    public @NotNull WakaMigrationRunner register(@NotNull WakaMigration migration) {
+        WakaMigration previous = migrations.putIfAbsent(migration.getVersion(), migration);
+
+        if (previous != null) {
+            throw new IllegalStateException(String.format(
+                "Migrations \"%s\" and \"%s\" share the version %d",
+                previous.getDescription(), migration.getDescription(), migration.getVersion()
+            ));
+        }
+
+        return this;
+    }
+
+    public @NotNull Collection<WakaMigration> getMigrations() {
+        List<WakaMigration> sorted = new ArrayList<>(migrations.values());
+        sorted.sort(Comparator.comparingInt(WakaMigration::getVersion));
+
+        return sorted;
+    }
+
+    /**
+     * Applies the pending migrations.
+     *
+     * @return the amount of migrations applied
+     */
+    public int migrate(@NotNull Connection connection) throws Exception {
+        connection.createStatement().execute(
+            textReader.getSql("create_wakacraft_schema_table")
+        );
+
+        lock(connection);
+
+        try {
+            // Read once locked, another proxy may have just applied them
+            Map<Integer, String> pending = new HashMap<>();
+            List<Integer> completed = new ArrayList<>();
+
+            try (ResultSet resultSet = connection.createStatement().executeQuery(
+                textReader.getSql("retrieve_wakacraft_schema_history")
+            )) {
+                while (resultSet.next()) {
+                    if (resultSet.getBoolean("completed")) {
+                        completed.add(resultSet.getInt("version"));
+                    } else {
+                        pending.put(resultSet.getInt("version"), resultSet.getString("checkpoint"));
+                    }
+                }
+            }
+
+            int applied = 0;
+
+            for (WakaMigration migration : getMigrations()) {
+                if (completed.contains(migration.getVersion())) {
+                    continue;
+                }
+
+                if (!pending.containsKey(migration.getVersion())) {
+                    PreparedStatement preparedStatement = connection.prepareStatement(
+                        textReader.getSql("create_wakacraft_schema_version")
+                    );
+
+                    preparedStatement.setInt(1, migration.getVersion());
+                    preparedStatement.setString(2, migration.getDescription());
+
+                    preparedStatement.executeUpdate();
+                }
+
+                logger.info("Migrating the schema to version " + migration.getVersion() + " (" + migration.getDescription() + ")");
+
+                apply(connection, migration, pending.get(migration.getVersion()));
+
+                applied++;
+            }
+
+            return applied;
+        } finally {
+            unlock(connection);
+        }
+    }
+
+    private void apply(@NotNull Connection connection, @NotNull WakaMigration migration, @Nullable String checkpoint) throws Exception {
+        PreparedStatement checkpointStatement = connection.prepareStatement(
+            textReader.getSql("update_wakacraft_schema_checkpoint")
+        );
+
+        while ((checkpoint = migration.migrate(connection, checkpoint)) != null) {
+            checkpointStatement.setString(1, checkpoint);
+            checkpointStatement.setInt(2, migration.getVersion());
+
+            checkpointStatement.executeUpdate();
+        }
+
+        PreparedStatement completeStatement = connection.prepareStatement(
+            textReader.getSql("complete_wakacraft_schema_version")
+        );
+
+        completeStatement.setInt(1, migration.getVersion());
+
+        completeStatement.executeUpdate();
+    }
+
+    private void lock(@NotNull Connection connection) throws Exception {
+        if (!mysql) {
+            return;
+        }
+
+        PreparedStatement preparedStatement = connection.prepareStatement(
+            textReader.getSql("lock_wakacraft_schema")
+        );
+
+        preparedStatement.setInt(1, lockTimeout);
+
+        try (ResultSet resultSet = preparedStatement.executeQuery()) {
+            if (!resultSet.next() || resultSet.getInt(1) != 1) {
+                throw new IllegalStateException("Another proxy is still migrating the schema after " + lockTimeout + " seconds");
+            }
+        }
+    }
+
+    private void unlock(@NotNull Connection connection) throws Exception {
+        if (!mysql) {
+            return;
+        }
+
+        connection.createStatement().executeQuery(
+            textReader.getSql("unlock_wakacraft_schema")
+        ).close();
+    }
+}
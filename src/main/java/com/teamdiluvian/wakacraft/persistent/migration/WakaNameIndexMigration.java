@@ -0,0 +1,85 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Luiz Otávio
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.teamdiluvian.wakacraft.persistent.migration;
+
+import com.teamdiluvian.wakacraft.util.TextReader;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+
+/**
+ * Adds the player name index to tables created before it existed.
+ *
+ * @author TeamDiluvian
+ * @since 18/10/2026
+ */
+@RequiredArgsConstructor
+public class WakaNameIndexMigration implements WakaMigration {
+
+    private final TextReader textReader;
+
+    @Override
+    public int getVersion() {
+        return 2;
+    }
+
+    @Override
+    public @NotNull String getDescription() {
+        return "add name index";
+    }
+
+    @Override
+    public @Nullable String migrate(@NotNull Connection connection, @Nullable String checkpoint) throws Exception {
+        if (!hasNameIndex(connection)) {
+            connection.createStatement().execute(
+                textReader.getSql("create_wakacraft_name_index")
+            );
+        }
+
+        return null;
+    }
+
+    private boolean hasNameIndex(@NotNull Connection connection) throws Exception {
+        DatabaseMetaData metaData = connection.getMetaData();
+
+        String table = metaData.storesUpperCaseIdentifiers() ? "WAKA_CRAFT_TIME" : "waka_craft_time";
+
+        try (ResultSet resultSet = metaData.getIndexInfo(connection.getCatalog(), null, table, false, false)) {
+            while (resultSet.next()) {
+                if ("player_name".equalsIgnoreCase(resultSet.getString("COLUMN_NAME"))
+                    && resultSet.getInt("ORDINAL_POSITION") == 1) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Luiz Otávio
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.teamdiluvian.wakacraft.persistent.shard;
+
+import com.teamdiluvian.wakacraft.persistent.SQLWakaDatabase;
+import com.teamdiluvian.wakacraft.persistent.connector.HikariWakaConnector;
+import com.teamdiluvian.wakacraft.util.TextReader;
+import com.teamdiluvian.wakacraft.util.UniqueIds;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves the players stored on the wrong shard to the one {@link WakaShards} picks for them.
+ *
+ * @author TeamDiluvian
+ * @since 18/10/2026
+ */
+public class WakaShardRebalancer {
+
+    private static final String[] TABLES = {
+        "waka_craft_time", "waka_craft_server_time", "waka_craft_hourly", "waka_craft_daily"
+    };
+
+    private final List<HikariWakaConnector> shards;
+    private final TextReader textReader;
+    private final int chunkSize;
+
+    public WakaShardRebalancer(@NotNull List<HikariWakaConnector> shards, int chunkSize) {
+        this.shards = shards;
+        this.chunkSize = chunkSize;
+
+        textReader = new TextReader();
+        try {
+            textReader.loadFromResources("sql/");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: WakaShardRebalancer <database.properties> [chunkSize]");
+            System.exit(1);
+        }
+
+        Properties properties = new Properties();
+        try (FileReader reader = new FileReader(args[0])) {
+            properties.load(reader);
+        }
+
+        List<HikariWakaConnector> shards = HikariWakaConnector.sharded(properties);
+        shards.forEach(HikariWakaConnector::connect);
+
+        try {
+            // Migrates every shard, the new ones included, and creates the routes table
+            new SQLWakaDatabase(shards).shutdown(10, TimeUnit.SECONDS);
+
+            new WakaShardRebalancer(shards, args.length > 1 ? Integer.parseInt(args[1]) : 1000).rebalance();
+        } finally {
+            shards.forEach(HikariWakaConnector::disconnect);
+        }
+    }
+
+    /**
+     * @return how many players were moved
+     */
+    public long rebalance() throws Exception {
+        long moved = 0;
+
+        for (int shard = 0; shard < shards.size(); shard++) {
+            long shardMoved = rebalance(shard);
+
+            System.out.printf("Moved %d players out of shard %d%n", shardMoved, shard);
+
+            moved += shardMoved;
+        }
+
+        return moved;
+    }
+
+    private long rebalance(int source) throws Exception {
+        long moved = 0;
+        byte[] cursor = new byte[0];
+
+        while (true) {
+            Map<Integer, List<UUID>> misplaced = new LinkedHashMap<>();
+            Map<String, UUID> routes = new LinkedHashMap<>();
+
+            int rows = 0;
+
+            try (Connection connection = shards.get(source).createConnection()) {
+                PreparedStatement preparedStatement = connection.prepareStatement(
+                    textReader.getSql("retrieve_wakacraft_shard_chunk")
+                );
+
+                preparedStatement.setBytes(1, cursor);
+                preparedStatement.setInt(2, chunkSize);
+
+                ResultSet resultSet = preparedStatement.executeQuery();
+                while (resultSet.next()) {
+                    rows++;
+                    cursor = resultSet.getBytes("unique_id");
+
+                    UUID uniqueId = UniqueIds.fromBytes(cursor);
+                    String name = resultSet.getString("player_name");
+
+                    if (name != null) {
+                        routes.put(name, uniqueId);
+                    }
+
+                    int target = WakaShards.indexOf(uniqueId, shards.size());
+                    if (target != source) {
+                        misplaced.computeIfAbsent(target, shard -> new ArrayList<>()).add(uniqueId);
+                    }
+                }
+            }
+
+            if (rows == 0) {
+                return moved;
+            }
+
+            updateRoutes(routes);
+
+            for (Map.Entry<Integer, List<UUID>> entry : misplaced.entrySet()) {
+                move(shards.get(source), shards.get(entry.getKey()), entry.getValue());
+
+                moved += entry.getValue().size();
+            }
+        }
+    }
+
+    private void move(@NotNull HikariWakaConnector source, @NotNull HikariWakaConnector target,
+                      @NotNull List<UUID> uniqueIds) throws Exception {
+        String placeholders = String.join(", ", Collections.nCopies(uniqueIds.size(), "?"));
+
+        try (Connection from = source.createConnection(); Connection to = target.createConnection()) {
+            to.setAutoCommit(false);
+
+            for (String table : TABLES) {
+                execute(to, String.format(textReader.getSql("delete_wakacraft_rows"), table, placeholders), uniqueIds);
+
+                copy(from, to, table, placeholders, uniqueIds);
+            }
+
+            to.commit();
+
+            from.setAutoCommit(false);
+
+            for (String table : TABLES) {
+                execute(from, String.format(textReader.getSql("delete_wakacraft_rows"), table, placeholders), uniqueIds);
+            }
+
+            from.commit();
+        }
+    }
+
+    /**
+     * Copies the rows of the given players from one shard to another, {@code chunkSize} rows per batch.
+     */
+    private void copy(@NotNull Connection from, @NotNull Connection to, @NotNull String table,
+                      @NotNull String placeholders, @NotNull List<UUID> uniqueIds) throws Exception {
+        PreparedStatement selectStatement = from.prepareStatement(
+            String.format(textReader.getSql("retrieve_wakacraft_rows"), table, placeholders)
+        );
+
+        bind(selectStatement, uniqueIds);
+
+        ResultSet resultSet = selectStatement.executeQuery();
+        ResultSetMetaData metaData = resultSet.getMetaData();
+
+        List<String> columns = new ArrayList<>();
+        for (int column = 1; column <= metaData.getColumnCount(); column++) {
+            columns.add(metaData.getColumnLabel(column));
+        }
+
+        PreparedStatement insertStatement = to.prepareStatement(String.format(
+            textReader.getSql("insert_wakacraft_rows"),
+            table, String.join(", ", columns), String.join(", ", Collections.nCopies(columns.size(), "?"))
+        ));
+
+        int rows = 0;
+        while (resultSet.next()) {
+            for (int column = 1; column <= columns.size(); column++) {
+                insertStatement.setObject(column, resultSet.getObject(column));
+            }
+
+            insertStatement.addBatch();
+
+            if (++rows % chunkSize == 0) {
+                insertStatement.executeBatch();
+            }
+        }
+
+        if (rows % chunkSize != 0) {
+            insertStatement.executeBatch();
+        }
+    }
+
+    private void updateRoutes(@NotNull Map<String, UUID> routes) throws Exception {
+        if (routes.isEmpty() || shards.size() == 1) {
+            return;
+        }
+
+        try (Connection connection = shards.get(0).createConnection()) {
+            PreparedStatement preparedStatement = connection.prepareStatement(
+                textReader.getSql("update_wakacraft_route")
+            );
+
+            for (Map.Entry<String, UUID> route : routes.entrySet()) {
+                preparedStatement.setString(1, route.getKey());
+                preparedStatement.setBytes(2, UniqueIds.toBytes(route.getValue()));
+
+                preparedStatement.addBatch();
+            }
+
+            preparedStatement.executeBatch();
+        }
+    }
+
+    private void execute(@NotNull Connection connection, @NotNull String sql, @NotNull List<UUID> uniqueIds) throws Exception {
+        PreparedStatement preparedStatement = connection.prepareStatement(sql);
+
+        bind(preparedStatement, uniqueIds);
+
+        preparedStatement.executeUpdate();
+    }
+
+    private void bind(@NotNull PreparedStatement preparedStatement, @NotNull List<UUID> uniqueIds) throws Exception {
+        for (int index = 0; index < uniqueIds.size(); index++) {
+            preparedStatement.setBytes(index + 1, UniqueIds.toBytes(uniqueIds.get(index)));
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Luiz Otávio
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.teamdiluvian.wakacraft.presence;
+
+import com.teamdiluvian.wakacraft.metrics.WakaHistogram;
+import com.teamdiluvian.wakacraft.metrics.WakaMetrics;
+import org.jetbrains.annotations.NotNull;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Publishes the players online on this proxy to Redis from its own thread.
+ *
+ * @author TeamDiluvian
+ * @since 18/10/2026
+ */
+public class RedisPresenceDispatcher {
+
+    private static final String PROXIES = "wakacraft-proxies";
+    private static final String PRESENCE_PREFIX = "wakacraft-presence:";
+
+    private final JedisPool jedisPool;
+
+    private final String proxyId;
+    private final String presenceKey;
+    private final long expireAfter;
+    private final Logger logger;
+
+    private final Set<UUID> localPlayers = ConcurrentHashMap.newKeySet();
+    private final Map<UUID, Boolean> pendingChanges = new ConcurrentHashMap<>();
+
+    private volatile List<String> remoteProxies = Collections.emptyList();
+
+    private final ScheduledExecutorService scheduler;
+
+    private final WakaHistogram lookupTimer;
+    private final WakaHistogram flushTimer;
+    private final WakaHistogram heartbeatTimer;
+
+    public RedisPresenceDispatcher(@NotNull JedisPool jedisPool, @NotNull String proxyId, long flushInterval,
+                                   long heartbeatInterval, long expireAfter, @NotNull WakaMetrics metrics,
+                                   @NotNull Logger logger) {
+        this.jedisPool = jedisPool;
+        this.proxyId = proxyId;
+        this.presenceKey = PRESENCE_PREFIX + proxyId;
+        this.expireAfter = expireAfter;
+        this.logger = logger;
+
+        lookupTimer = metrics.histogram("wakacraft_redis_seconds", "Time spent on Redis round trips", "operation", "presence_lookup");
+        flushTimer = metrics.histogram("wakacraft_redis_seconds", "Time spent on Redis round trips", "operation", "presence_flush");
+        heartbeatTimer = metrics.histogram("wakacraft_redis_seconds", "Time spent on Redis round trips", "operation", "presence_heartbeat");
+
+        metrics.gauge("wakacraft_local_players", "Players online on this proxy", localPlayers::size);
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable);
+
+            thread.setName("Wakacraft-Presence");
+
+            return thread;
+        });
+
+        scheduler.scheduleWithFixedDelay(this::heartbeat, 0, heartbeatInterval, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    public void join(@NotNull UUID uniqueId) {
+        localPlayers.add(uniqueId);
+        pendingChanges.put(uniqueId, Boolean.TRUE);
+    }
+
+    public void leave(@NotNull UUID uniqueId) {
+        localPlayers.remove(uniqueId);
+        pendingChanges.put(uniqueId, Boolean.FALSE);
+    }
+
+    /**
+     * Checks whether a player is online on any live proxy. Players of this proxy are
+     * answered locally, the others with a single pipelined round trip on the presence
+     * thread, so callers never block on Redis.
+     */
+    public @NotNull CompletableFuture<Boolean> isOnline(@NotNull UUID uniqueId) {
+        if (localPlayers.contains(uniqueId)) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        List<String> proxies = remoteProxies;
+        if (proxies.isEmpty()) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        try {
+            return CompletableFuture.supplyAsync(() -> isOnline(proxies, uniqueId.toString()), scheduler);
+        } catch (RejectedExecutionException exception) {
+            return CompletableFuture.failedFuture(exception);
+        }
+    }
+
+    public void flush() {
+        if (pendingChanges.isEmpty()) {
+            return;
+        }
+
+        Map<UUID, Boolean> changes = new HashMap<>();
+
+        for (Map.Entry<UUID, Boolean> entry : pendingChanges.entrySet()) {
+            // Only drop the change that is being written, a newer one stays for the next flush
+            if (pendingChanges.remove(entry.getKey(), entry.getValue())) {
+                changes.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        long start = System.nanoTime();
+
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+
+            changes.forEach((uniqueId, online) -> {
+                if (online) {
+                    pipeline.sadd(presenceKey, uniqueId.toString());
+                } else {
+                    pipeline.srem(presenceKey, uniqueId.toString());
+                }
+            });
+
+            pipeline.pexpire(presenceKey, expireAfter);
+            pipeline.sync();
+        } catch (Exception exception) {
+            changes.forEach(pendingChanges::putIfAbsent);
+
+            flushTimer.recordError();
+
+            logger.log(Level.WARNING, "Could not write the presence changes", exception);
+        } finally {
+            flushTimer.recordSince(start);
+        }
+    }
+
+    /**
+     * Stops the timers, writes the remaining changes and removes this proxy from Redis.
+     */
+    public void close(long timeout, @NotNull TimeUnit unit) {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(timeout, unit);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+
+            pipeline.del(presenceKey);
+            pipeline.zrem(PROXIES, proxyId);
+
+            pipeline.sync();
+        } catch (Exception exception) {
+            logger.log(Level.WARNING, "Could not remove this proxy from the presence sets", exception);
+        }
+    }
+
+    private void heartbeat() {
+        long now = System.currentTimeMillis();
+        long start = System.nanoTime();
+
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+
+            pipeline.zadd(PROXIES, now, proxyId);
+            pipeline.zremrangeByScore(PROXIES, Double.NEGATIVE_INFINITY, now - expireAfter);
+
+            Response<Long> refreshed = pipeline.pexpire(presenceKey, expireAfter);
+            Response<List<String>> proxies = pipeline.zrangeByScore(PROXIES, now - expireAfter, Double.POSITIVE_INFINITY);
+
+            pipeline.sync();
+
+            // The set expired (Redis restarted or was unreachable for too long), so write it again
+            if (refreshed.get() == 0 && !localPlayers.isEmpty()) {
+                Pipeline resync = jedis.pipelined();
+
+                for (UUID uniqueId : localPlayers) {
+                    resync.sadd(presenceKey, uniqueId.toString());
+                }
+
+                resync.pexpire(presenceKey, expireAfter);
+                resync.sync();
+            }
+
+            List<String> remote = new ArrayList<>(proxies.get());
+            remote.remove(proxyId);
+
+            remoteProxies = remote;
+        } catch (Exception exception) {
+            heartbeatTimer.recordError();
+
+            logger.log(Level.WARNING, "Could not send the presence heartbeat", exception);
+        } finally {
+            heartbeatTimer.recordSince(start);
+        }
+    }
+
+    private boolean isOnline(@NotNull List<String> proxies, @NotNull String member) {
+        long start = System.nanoTime();
+
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+
+            List<Response<Boolean>> responses = new ArrayList<>(proxies.size());
+            for (String proxy : proxies) {
+                responses.add(pipeline.sismember(PRESENCE_PREFIX + proxy, member));
+            }
+
+            pipeline.sync();
+
+            for (Response<Boolean> response : responses) {
+                if (response.get()) {
+                    return true;
+                }
+            }
+        } catch (RuntimeException exception) {
+            lookupTimer.recordError();
+            throw exception;
+        } finally {
+            lookupTimer.recordSince(start);
+        }
+
+        return false;
+    }
+}
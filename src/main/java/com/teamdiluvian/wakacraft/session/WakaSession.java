@@ -0,0 +1,85 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Luiz Otávio
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.teamdiluvian.wakacraft.session;
+
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.UUID;
+
+/**
+ * A player's time on the proxy, from login to disconnect.
+ *
+ * @author TeamDiluvian
+ * @since 18/10/2026
+ */
+@Getter
+public class WakaSession {
+
+    private final UUID uniqueId;
+    private final String playerName;
+    private final long startedAt;
+
+    private String currentServer;
+    private long currentServerSince;
+    private int switches;
+
+    WakaSession(@NotNull UUID uniqueId, @NotNull String playerName, long startedAt) {
+        this.uniqueId = uniqueId;
+        this.playerName = playerName;
+        this.startedAt = startedAt;
+    }
+
+    public synchronized @Nullable String getCurrentServer() {
+        return currentServer;
+    }
+
+    synchronized void switchServer(@NotNull String server, long time, @NotNull WakaPlaytimeListener listener) {
+        leaveServer(time, listener);
+
+        currentServer = server;
+        currentServerSince = time;
+        switches++;
+    }
+
+    synchronized void leaveServer(long time, @NotNull WakaPlaytimeListener listener) {
+        checkpointServer(time, listener);
+
+        currentServer = null;
+    }
+
+    /**
+     * Counts the time on the current server up to now, without leaving it.
+     */
+    synchronized void checkpointServer(long time, @NotNull WakaPlaytimeListener listener) {
+        if (currentServer != null && time > currentServerSince) {
+            listener.onPlaytime(uniqueId, currentServer, currentServerSince, time);
+        }
+
+        currentServerSince = time;
+    }
+}
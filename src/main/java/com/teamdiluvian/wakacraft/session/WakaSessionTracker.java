@@ -0,0 +1,125 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Luiz Otávio
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.teamdiluvian.wakacraft.session;
+
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the open session of every tracked player on this proxy.
+ *
+ * @author TeamDiluvian
+ * @since 18/10/2026
+ */
+@RequiredArgsConstructor
+public class WakaSessionTracker {
+
+    private final Logger logger;
+
+    private final Map<UUID, WakaSession> sessions = new ConcurrentHashMap<>();
+    private final List<WakaPlaytimeListener> playtimeListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Registers a listener called whenever a stretch of time on a server ends or is checkpointed.
+     */
+    public void addPlaytimeListener(@NotNull WakaPlaytimeListener playtimeListener) {
+        playtimeListeners.add(playtimeListener);
+    }
+
+    public @NotNull WakaSession open(@NotNull UUID uniqueId, @NotNull String playerName, long time) {
+        WakaSession session = new WakaSession(uniqueId, playerName, time);
+
+        sessions.put(uniqueId, session);
+
+        return session;
+    }
+
+    /**
+     * Records a switch to another backend server, ignored for players without a session.
+     */
+    public void switchServer(@NotNull UUID uniqueId, @NotNull String server, long time) {
+        WakaSession session = sessions.get(uniqueId);
+
+        if (session != null) {
+            session.switchServer(server, time, this::notifyPlaytime);
+        }
+    }
+
+    /**
+     * @return the closed session, or null if the player had none
+     */
+    public @Nullable WakaSession close(@NotNull UUID uniqueId, long time) {
+        WakaSession session = sessions.remove(uniqueId);
+
+        if (session != null) {
+            session.leaveServer(time, this::notifyPlaytime);
+        }
+
+        return session;
+    }
+
+    /**
+     * Counts the time every open session spent on its current server up to now.
+     */
+    public void checkpoint(long time) {
+        for (WakaSession session : sessions.values()) {
+            session.checkpointServer(time, this::notifyPlaytime);
+        }
+    }
+
+    public @Nullable WakaSession getSession(@NotNull UUID uniqueId) {
+        return sessions.get(uniqueId);
+    }
+
+    public @NotNull Collection<WakaSession> getSessions() {
+        return Collections.unmodifiableCollection(sessions.values());
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    private void notifyPlaytime(@NotNull UUID uniqueId, @NotNull String server, long from, long to) {
+        for (WakaPlaytimeListener playtimeListener : playtimeListeners) {
+            try {
+                playtimeListener.onPlaytime(uniqueId, server, from, to);
+            } catch (Exception exception) {
+                logger.log(Level.SEVERE, "A playtime listener failed", exception);
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Luiz Otávio
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.teamdiluvian.wakacraft.task;
+
+import com.teamdiluvian.wakacraft.persistent.WakaDatabase;
+import com.teamdiluvian.wakacraft.session.WakaSession;
+import com.teamdiluvian.wakacraft.session.WakaSessionTracker;
+import lombok.RequiredArgsConstructor;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Periodically writes the measure time of every open session.
+ *
+ * @author TeamDiluvian
+ * @since 18/10/2026
+ */
+@RequiredArgsConstructor
+public class WakaCheckpointTask implements Runnable {
+
+    private final WakaDatabase wakaDatabase;
+    private final WakaSessionTracker sessionTracker;
+    private final Logger logger;
+
+    @Override
+    public void run() {
+        long measureTime = System.currentTimeMillis();
+
+        sessionTracker.checkpoint(measureTime);
+
+        Map<UUID, String> players = new HashMap<>();
+
+        for (WakaSession session : sessionTracker.getSessions()) {
+            players.put(session.getUniqueId(), session.getPlayerName());
+        }
+
+        // Joined so a slow database delays the next checkpoint instead of stacking them
+        try {
+            wakaDatabase.checkpointPlayers(players, measureTime)
+                .join();
+        } catch (Exception exception) {
+            logger.log(Level.WARNING, "Could not checkpoint the online players", exception);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Luiz Otávio
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.teamdiluvian.wakacraft.task;
+
+import com.teamdiluvian.wakacraft.persistent.WakaDatabase;
+import lombok.RequiredArgsConstructor;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Periodically rolls the hourly playtime up into the daily aggregates and maintains the partitions.
+ *
+ * @author TeamDiluvian
+ * @since 18/10/2026
+ */
+@RequiredArgsConstructor
+public class WakaRollupTask implements Runnable {
+
+    private final WakaDatabase wakaDatabase;
+    private final Logger logger;
+
+    @Override
+    public void run() {
+        long now = System.currentTimeMillis();
+
+        // Independent steps, a failed partition change must not hold the rollups back
+        try {
+            wakaDatabase.maintainPartitions(now).join();
+        } catch (Exception exception) {
+            logger.log(Level.WARNING, "Could not maintain the hourly partitions", exception);
+        }
+
+        try {
+            wakaDatabase.rollupHistory(now).join();
+        } catch (Exception exception) {
+            logger.log(Level.WARNING, "Could not roll the history up", exception);
+        }
+    }
+}
@@ -28,10 +28,12 @@ import java.io.*;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
@@ -46,6 +48,13 @@ public class TextReader {
         return sqlQueries.get(name);
     }
 
+    /**
+     * @return the names of every query loaded, relative to the folder they were loaded from
+     */
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(sqlQueries.keySet());
+    }
+
     /**
      * Loads a set of SQL files from a specified resource folder
      *
@@ -73,30 +82,42 @@ public class TextReader {
         if(!file.exists()) {
             throw new IllegalArgumentException("Could not find specified file");
         }
+        // Running from class folders, as tests do, the resources may sit in a folder of their own
         if(file.isDirectory()) {
-            throw new IllegalArgumentException("The specified folder must be a file");
+            URL folder = classLoader.getResource(path);
+            if(folder == null) {
+                throw new IllegalArgumentException("Could not find specified folder");
+            }
+
+            try {
+                readTree(new File(folder.toURI()), "");
+            } catch (URISyntaxException e) {
+                throw new IllegalArgumentException(e);
+            }
+            return;
         }
 
-        JarFile jarFile = new JarFile(file);
-        Enumeration<JarEntry> entries = jarFile.entries();
+        try (JarFile jarFile = new JarFile(file)) {
+            Enumeration<JarEntry> entries = jarFile.entries();
 
-        while (entries.hasMoreElements()) {
-            JarEntry entry = entries.nextElement();
-            String name = entry.getName();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                String name = entry.getName();
 
-            if(name.length() < path.length() + 5 || !name.startsWith(path) || !name.endsWith(".sql")) {
-                continue;
-            }
+                if(name.length() < path.length() + 5 || !name.startsWith(path) || !name.endsWith(".sql")) {
+                    continue;
+                }
 
-            InputStream stream = classLoader.getResourceAsStream(name);
-            if(stream == null) {
-                return;
-            }
+                InputStream stream = classLoader.getResourceAsStream(name);
+                if(stream == null) {
+                    return;
+                }
 
-            InputStreamReader reader = new InputStreamReader(stream);
-            name = name.substring(path.length(), name.length() - 4);
+                InputStreamReader reader = new InputStreamReader(stream);
+                name = name.substring(path.length(), name.length() - 4);
 
-            read(name, reader);
+                read(name, reader);
+            }
         }
     }
 
@@ -158,7 +179,24 @@ public class TextReader {
         readFile(file);
     }
 
+    /**
+     * Loads the SQL files of a folder and its subfolders, named after their path within it
+     */
+    private void readTree(File dir, String prefix) {
+        for (File listFile : Objects.requireNonNull(dir.listFiles())) {
+            if(listFile.isDirectory()) {
+                readTree(listFile, prefix + listFile.getName() + "/");
+            } else {
+                readFile(listFile, prefix);
+            }
+        }
+    }
+
     private void readFile(File file) {
+        readFile(file, "");
+    }
+
+    private void readFile(File file, String prefix) {
         if(file.isDirectory()) {
             return;
         }
@@ -167,7 +205,7 @@ public class TextReader {
         if (name.length() < 5 || !name.endsWith(".sql")) {
             return;
         }
-        name = name.substring(0, name.length() - 4);
+        name = prefix + name.substring(0, name.length() - 4);
 
         try(FileReader reader = new FileReader(file)) {
             read(name, reader);
@@ -0,0 +1,76 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Luiz Otávio
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.teamdiluvian.wakacraft.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.UUID;
+
+/**
+ * Converts unique ids to and from the 16 bytes stored in {@code BINARY(16)} columns.
+ *
+ * @author TeamDiluvian
+ * @since 18/10/2026
+ */
+public final class UniqueIds {
+
+    private UniqueIds() {
+    }
+
+    public static byte[] toBytes(@NotNull UUID uniqueId) {
+        byte[] bytes = new byte[16];
+
+        write(bytes, 0, uniqueId.getMostSignificantBits());
+        write(bytes, 8, uniqueId.getLeastSignificantBits());
+
+        return bytes;
+    }
+
+    public static @NotNull UUID fromBytes(byte[] bytes) {
+        if (bytes.length != 16) {
+            throw new IllegalArgumentException("A unique id takes 16 bytes, got " + bytes.length);
+        }
+
+        return new UUID(read(bytes, 0), read(bytes, 8));
+    }
+
+    private static void write(byte[] bytes, int offset, long value) {
+        for (int index = 7; index >= 0; index--) {
+            bytes[offset + index] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private static long read(byte[] bytes, int offset) {
+        long value = 0;
+
+        for (int index = 0; index < 8; index++) {
+            value = (value << 8) | (bytes[offset + index] & 0xFF);
+        }
+
+        return value;
+    }
+}
@@ -0,0 +1 @@
+ALTER TABLE %s ADD COLUMN unique_bin BINARY(16) NULL;
@@ -0,0 +1 @@
+ALTER TABLE waka_craft_hourly REORGANIZE PARTITION pmax INTO (PARTITION %s VALUES LESS THAN (%d), PARTITION pmax VALUES LESS THAN MAXVALUE);
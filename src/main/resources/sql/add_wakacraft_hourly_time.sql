@@ -0,0 +1 @@
+INSERT INTO waka_craft_hourly (unique_id, bucket_hour, play_time) VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE play_time = play_time + VALUES(play_time);
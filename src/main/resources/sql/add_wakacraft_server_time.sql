@@ -0,0 +1 @@
+INSERT INTO waka_craft_server_time (unique_id, server_name, play_time) VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE play_time = play_time + VALUES(play_time);
@@ -0,0 +1 @@
+INSERT INTO waka_craft_time (unique_id, player_name, measure_time) VALUES %s ON DUPLICATE KEY UPDATE player_name = VALUES(player_name), measure_time = VALUES(measure_time);
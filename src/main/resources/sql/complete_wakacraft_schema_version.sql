@@ -0,0 +1 @@
+UPDATE waka_craft_schema_history SET checkpoint = NULL, completed = TRUE WHERE version = ?;
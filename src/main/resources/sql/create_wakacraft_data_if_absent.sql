@@ -0,0 +1 @@
+INSERT IGNORE INTO waka_craft_time (unique_id, player_name, measure_time) VALUES (?, ?, ?);
@@ -0,0 +1 @@
+CREATE INDEX idx_waka_craft_time_player_name ON waka_craft_time (player_name);
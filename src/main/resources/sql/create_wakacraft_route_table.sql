@@ -0,0 +1,5 @@
+CREATE TABLE IF NOT EXISTS waka_craft_route(
+    player_name VARCHAR(16) NOT NULL,
+    unique_id BINARY(16) NOT NULL,
+    PRIMARY KEY (player_name)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
@@ -0,0 +1,8 @@
+CREATE TABLE IF NOT EXISTS waka_craft_schema_history(
+    version INT NOT NULL,
+    description VARCHAR(128) NOT NULL,
+    checkpoint VARCHAR(255),
+    completed BOOLEAN NOT NULL DEFAULT FALSE,
+    applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (version)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
@@ -0,0 +1 @@
+INSERT INTO waka_craft_schema_history (version, description) VALUES (?, ?);
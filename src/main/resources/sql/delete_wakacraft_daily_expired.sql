@@ -0,0 +1 @@
+DELETE FROM waka_craft_daily WHERE bucket_day < ?;
@@ -0,0 +1 @@
+DELETE FROM waka_craft_flush WHERE created_at < ?;
@@ -0,0 +1 @@
+DELETE FROM waka_craft_route WHERE player_name = ? AND unique_id = ?;
@@ -0,0 +1 @@
+DELETE FROM %s WHERE unique_id IN (%s);
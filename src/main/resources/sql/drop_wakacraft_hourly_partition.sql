@@ -0,0 +1 @@
+ALTER TABLE waka_craft_hourly DROP PARTITION %s;
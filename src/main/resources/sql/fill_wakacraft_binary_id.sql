@@ -0,0 +1 @@
+UPDATE %s SET unique_bin = UNHEX(REPLACE(unique_id, '-', '')) WHERE unique_id > ? AND unique_id <= ?;
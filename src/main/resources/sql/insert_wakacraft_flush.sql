@@ -0,0 +1 @@
+INSERT INTO waka_craft_flush (flush_id, created_at) VALUES (?, ?);
@@ -0,0 +1 @@
+INSERT INTO %s (%s) VALUES (%s);
@@ -0,0 +1 @@
+SELECT GET_LOCK('wakacraft-partitions', 0);
@@ -0,0 +1,31 @@
+CREATE TABLE IF NOT EXISTS waka_craft_time(
+    unique_id BINARY(16) NOT NULL,
+    player_name VARCHAR(16),
+    measure_time BIGINT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (unique_id),
+    INDEX idx_waka_craft_time_player_name (player_name)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS waka_craft_server_time(
+    unique_id BINARY(16) NOT NULL,
+    server_name VARCHAR(64) NOT NULL,
+    play_time BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (unique_id, server_name)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS waka_craft_hourly(
+    unique_id BINARY(16) NOT NULL,
+    bucket_hour INT NOT NULL,
+    play_time BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (unique_id, bucket_hour)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS waka_craft_daily(
+    unique_id BINARY(16) NOT NULL,
+    bucket_day INT NOT NULL,
+    play_time BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (unique_id, bucket_day)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
@@ -0,0 +1,6 @@
+CREATE TABLE IF NOT EXISTS waka_craft_flush(
+    flush_id BINARY(16) NOT NULL,
+    created_at BIGINT NOT NULL,
+    PRIMARY KEY (flush_id),
+    INDEX idx_waka_craft_flush_created_at (created_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
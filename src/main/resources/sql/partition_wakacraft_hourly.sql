@@ -0,0 +1 @@
+ALTER TABLE waka_craft_hourly PARTITION BY RANGE (bucket_hour) (PARTITION pmax VALUES LESS THAN MAXVALUE);
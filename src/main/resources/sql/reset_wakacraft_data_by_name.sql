@@ -1 +0,0 @@
-UPDATE waka_craft_time SET measure_time = ? AND created_at = CURRENT_TIMESTAMP WHERE player_name = ?;
@@ -0,0 +1 @@
+INSERT IGNORE INTO waka_craft_time (unique_id, player_name, measure_time) VALUES (?, ?, ?); SELECT player_name, measure_time, created_at FROM waka_craft_time WHERE unique_id = ? LIMIT 1;
@@ -0,0 +1 @@
+SELECT unique_id, player_name, measure_time, created_at FROM waka_craft_time;
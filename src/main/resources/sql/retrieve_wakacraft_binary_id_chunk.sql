@@ -0,0 +1 @@
+SELECT MAX(unique_id) FROM (SELECT DISTINCT unique_id FROM %s WHERE unique_id > ? ORDER BY unique_id LIMIT ?) AS chunk;
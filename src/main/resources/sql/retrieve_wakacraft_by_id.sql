@@ -1 +1 @@
-SELECT measure_time, created_at FROM waka_craft_time WHERE unique_id = ? LIMIT 1;
+SELECT player_name, measure_time, created_at FROM waka_craft_time WHERE unique_id = ? LIMIT 1;
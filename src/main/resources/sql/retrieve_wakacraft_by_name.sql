@@ -1 +1 @@
-SELECT measure_time, created_at FROM waka_craft_time WHERE player_name = ? LIMIT 1;
+SELECT unique_id, player_name, measure_time, created_at FROM waka_craft_time WHERE player_name = ? LIMIT 1;
@@ -0,0 +1,5 @@
+SELECT
+    (SELECT COALESCE(SUM(play_time), 0) FROM waka_craft_hourly WHERE unique_id = ? AND bucket_hour >= ? AND bucket_hour < ?) AS today,
+    (SELECT COALESCE(SUM(play_time), 0) FROM waka_craft_daily WHERE unique_id = ? AND bucket_day >= ? AND bucket_day < ?) AS this_week,
+    (SELECT COALESCE(SUM(play_time), 0) FROM waka_craft_daily WHERE unique_id = ? AND bucket_day > ? AND bucket_day < ?) AS last_week,
+    (SELECT COALESCE(SUM(play_time), 0) FROM waka_craft_daily WHERE unique_id = ? AND bucket_day > ? AND bucket_day < ?) AS last_month;
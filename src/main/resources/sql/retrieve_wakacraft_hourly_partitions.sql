@@ -0,0 +1 @@
+SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM information_schema.PARTITIONS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'waka_craft_hourly' AND PARTITION_NAME IS NOT NULL;
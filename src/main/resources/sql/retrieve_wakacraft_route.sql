@@ -0,0 +1 @@
+SELECT unique_id FROM waka_craft_route WHERE player_name = ?;
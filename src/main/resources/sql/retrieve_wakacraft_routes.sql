@@ -0,0 +1 @@
+SELECT player_name, unique_id FROM waka_craft_route WHERE player_name IN (%s);
@@ -0,0 +1 @@
+SELECT * FROM %s WHERE unique_id IN (%s);
@@ -0,0 +1 @@
+SELECT version, checkpoint, completed FROM waka_craft_schema_history;
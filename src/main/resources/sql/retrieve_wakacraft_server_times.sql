@@ -0,0 +1 @@
+SELECT server_name, play_time FROM waka_craft_server_time WHERE unique_id = ? ORDER BY play_time DESC;
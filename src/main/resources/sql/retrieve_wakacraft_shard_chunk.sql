@@ -0,0 +1 @@
+SELECT unique_id, player_name FROM waka_craft_time WHERE unique_id > ? ORDER BY unique_id LIMIT ?;
@@ -0,0 +1 @@
+INSERT INTO waka_craft_daily (unique_id, bucket_day, play_time) SELECT unique_id, FLOOR(bucket_hour / 24), SUM(play_time) FROM waka_craft_hourly WHERE bucket_hour >= ? AND bucket_hour < ? GROUP BY unique_id, FLOOR(bucket_hour / 24) ON DUPLICATE KEY UPDATE play_time = VALUES(play_time);
@@ -0,0 +1 @@
+ALTER TABLE %s DROP PRIMARY KEY, DROP COLUMN unique_id, CHANGE COLUMN unique_bin unique_id BINARY(16) NOT NULL FIRST, ADD PRIMARY KEY (%s), ALGORITHM=INPLACE, LOCK=NONE;
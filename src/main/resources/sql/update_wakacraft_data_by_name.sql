@@ -1 +0,0 @@
-UPDATE waka_craft_time SET measure_time = ? WHERE player_name = ?;
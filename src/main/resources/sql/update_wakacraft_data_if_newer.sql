@@ -0,0 +1 @@
+UPDATE waka_craft_time SET measure_time = GREATEST(measure_time, ?) WHERE unique_id = ?;
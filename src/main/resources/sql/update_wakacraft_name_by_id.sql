@@ -0,0 +1 @@
+UPDATE waka_craft_time SET player_name = ? WHERE unique_id = ?;
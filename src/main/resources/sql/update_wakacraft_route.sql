@@ -0,0 +1 @@
+INSERT INTO waka_craft_route (player_name, unique_id) VALUES (?, ?) ON DUPLICATE KEY UPDATE unique_id = VALUES(unique_id);
@@ -0,0 +1,156 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Luiz Otávio
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.teamdiluvian.wakacraft.persistent;
+
+import com.teamdiluvian.wakacraft.model.WakaHistory;
+import com.teamdiluvian.wakacraft.model.WakaPlayer;
+import com.teamdiluvian.wakacraft.persistent.connector.HikariWakaConnector;
+import com.teamdiluvian.wakacraft.persistent.executor.WakaExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author TeamDiluvian
+ * @since 18/10/2026
+ */
+class SQLWakaDatabaseTest {
+
+    private HikariWakaConnector connector;
+    private SQLWakaDatabase wakaDatabase;
+
+    @BeforeEach
+    void setup() {
+        Properties properties = new Properties();
+        properties.setProperty("jdbcUrl", "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+
+        connector = new HikariWakaConnector(properties);
+        connector.connect();
+
+        wakaDatabase = new SQLWakaDatabase(Collections.singletonList(connector));
+    }
+
+    @AfterEach
+    void tearDown() {
+        wakaDatabase.shutdown(1, TimeUnit.SECONDS);
+        connector.disconnect();
+    }
+
+    @Test
+    void addsARetriedBatchOnlyOnce() {
+        UUID uniqueId = UUID.randomUUID();
+        UUID batchId = UUID.randomUUID();
+
+        Map<UUID, Map<String, Long>> serverTimes = Map.of(uniqueId, Map.of("lobby", 1000L));
+
+        // The first attempt went through but its result was lost, so the batch is written again
+        wakaDatabase.addServerTimes(batchId, serverTimes).values().forEach(CompletableFuture::join);
+        wakaDatabase.addServerTimes(batchId, serverTimes).values().forEach(CompletableFuture::join);
+
+        assertEquals(Map.of("lobby", 1000L), wakaDatabase.loadServerTimes(uniqueId).join());
+
+        wakaDatabase.addServerTimes(UUID.randomUUID(), serverTimes).values().forEach(CompletableFuture::join);
+
+        assertEquals(Map.of("lobby", 2000L), wakaDatabase.loadServerTimes(uniqueId).join());
+    }
+
+    @Test
+    void historyIncludesTodayBeforeItIsRolledUp() {
+        UUID uniqueId = UUID.randomUUID();
+
+        long now = System.currentTimeMillis();
+        int hour = (int) TimeUnit.MILLISECONDS.toHours(now);
+
+        Map<UUID, Map<Integer, Long>> yesterday = Map.of(uniqueId, Map.of(hour - 24, 3000L));
+        wakaDatabase.addHourlyTimes(UUID.randomUUID(), yesterday).values().forEach(CompletableFuture::join);
+
+        wakaDatabase.rollupHistory(now).join();
+
+        Map<UUID, Map<Integer, Long>> today = Map.of(uniqueId, Map.of(hour, 1000L));
+        wakaDatabase.addHourlyTimes(UUID.randomUUID(), today).values().forEach(CompletableFuture::join);
+
+        WakaHistory history = wakaDatabase.loadHistory(uniqueId, now).join();
+
+        assertEquals(1000L, history.getToday());
+        assertEquals(4000L, history.getLastSevenDays());
+        assertEquals(4000L, history.getLastThirtyDays());
+    }
+
+    @Test
+    void lookingUpANameInAnotherCaseKeepsTheStoredName() {
+        UUID uniqueId = UUID.randomUUID();
+
+        wakaDatabase.loadPlayer(uniqueId, "Steve", WakaExecutor.Priority.WRITE).join();
+        wakaDatabase.getPlayerCache().invalidate(uniqueId);
+
+        assertEquals("Steve", wakaDatabase.loadPlayer(null, "steve").join().getPlayerName());
+        assertEquals("Steve", reload(uniqueId).getPlayerName());
+    }
+
+    @Test
+    void staleNameIndexNeverRenamesThePreviousOwner() {
+        UUID previousOwner = UUID.randomUUID();
+        UUID currentOwner = UUID.randomUUID();
+
+        wakaDatabase.loadPlayer(previousOwner, "Steve", WakaExecutor.Priority.WRITE).join();
+        wakaDatabase.getPlayerCache().invalidate(previousOwner);
+
+        // The name changes hands through another proxy, the name index of this one still has the previous owner
+        SQLWakaDatabase otherProxy = new SQLWakaDatabase(Collections.singletonList(connector));
+        otherProxy.loadPlayer(previousOwner, "Alex", WakaExecutor.Priority.WRITE).join();
+        otherProxy.loadPlayer(currentOwner, "Steve", WakaExecutor.Priority.WRITE).join();
+        otherProxy.shutdown(1, TimeUnit.SECONDS);
+
+        assertEquals(currentOwner, wakaDatabase.loadPlayer(null, "Steve").join().getUniqueId());
+        assertEquals("Alex", reload(previousOwner).getPlayerName());
+    }
+
+    @Test
+    void findingAnUnknownNameCreatesNoPlayer() {
+        assertNull(wakaDatabase.findPlayer("Nobody").join());
+        assertTrue(wakaDatabase.loadPlayersByName(Collections.singletonList("Nobody")).join().isEmpty());
+    }
+
+    private WakaPlayer reload(UUID uniqueId) {
+        SQLWakaDatabase restarted = new SQLWakaDatabase(Collections.singletonList(connector));
+
+        try {
+            return restarted.loadPlayer(uniqueId, null).join();
+        } finally {
+            restarted.shutdown(1, TimeUnit.SECONDS);
+        }
+    }
+}
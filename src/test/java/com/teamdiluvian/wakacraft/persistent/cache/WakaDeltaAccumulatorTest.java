@@ -0,0 +1,120 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Luiz Otávio
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.teamdiluvian.wakacraft.persistent.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author TeamDiluvian
+ * @since 18/10/2026
+ */
+class WakaDeltaAccumulatorTest {
+
+    private final UUID written = UUID.randomUUID();
+    private final UUID failing = UUID.randomUUID();
+
+    private final List<UUID> batchIds = new ArrayList<>();
+    private final List<Map<UUID, Map<String, Long>>> writes = new ArrayList<>();
+
+    private WakaDeltaAccumulator<String> accumulator;
+
+    @AfterEach
+    void tearDown() {
+        accumulator.close(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void requeuesOnlyThePlayersOfFailedShards() {
+        boolean[] shardDown = {true};
+
+        // Each player lives on its own shard, the shard of the failing player is down at first
+        accumulator = new WakaDeltaAccumulator<>("Test", (batchId, times) -> {
+            batchIds.add(batchId);
+            writes.add(times);
+
+            Map<Collection<UUID>, CompletableFuture<Void>> results = new LinkedHashMap<>();
+            for (UUID uniqueId : times.keySet()) {
+                results.put(List.of(uniqueId), uniqueId.equals(failing) && shardDown[0] ?
+                    CompletableFuture.failedFuture(new SQLException("Connection refused", "08001")) :
+                    CompletableFuture.completedFuture(null));
+            }
+
+            return results;
+        }, 3600000, 500, Logger.getLogger("Wakacraft"));
+
+        accumulator.add(written, "lobby", 1000);
+        accumulator.add(failing, "lobby", 2000);
+
+        accumulator.flush();
+
+        assertTrue(accumulator.getPending(written).isEmpty());
+        assertEquals(Map.of("lobby", 2000L), accumulator.getPending(failing));
+
+        shardDown[0] = false;
+        accumulator.flush();
+
+        assertEquals(2, writes.size());
+        assertEquals(Map.of(failing, Map.of("lobby", 2000L)), writes.get(1));
+        assertEquals(batchIds.get(0), batchIds.get(1));
+        assertEquals(0, accumulator.size());
+    }
+
+    @Test
+    void dropsBatchesRejectedByTheDatabase() {
+        accumulator = new WakaDeltaAccumulator<>("Test", (batchId, times) -> {
+            writes.add(times);
+
+            return Map.of(times.keySet(), times.containsKey(failing) ?
+                CompletableFuture.failedFuture(new SQLException("Data truncation", "22001")) :
+                CompletableFuture.completedFuture(null));
+        }, 3600000, 500, Logger.getLogger("Wakacraft"));
+
+        accumulator.add(failing, "lobby", 2000);
+        accumulator.flush();
+
+        assertEquals(0, accumulator.size());
+
+        accumulator.add(written, "lobby", 1000);
+        accumulator.flush();
+
+        assertEquals(2, writes.size());
+        assertEquals(Map.of(written, Map.of("lobby", 1000L)), writes.get(1));
+    }
+}
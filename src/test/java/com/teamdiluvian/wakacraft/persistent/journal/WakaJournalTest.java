@@ -0,0 +1,115 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Luiz Otávio
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.teamdiluvian.wakacraft.persistent.journal;
+
+import com.teamdiluvian.wakacraft.persistent.SQLWakaDatabase;
+import com.teamdiluvian.wakacraft.persistent.WakaDatabase;
+import com.teamdiluvian.wakacraft.persistent.connector.HikariWakaConnector;
+import com.teamdiluvian.wakacraft.persistent.executor.WakaExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author TeamDiluvian
+ * @since 18/10/2026
+ */
+class WakaJournalTest {
+
+    private static final String NAME = "Player";
+
+    @TempDir
+    Path directory;
+
+    private HikariWakaConnector connector;
+
+    @BeforeEach
+    void setup() {
+        Properties properties = new Properties();
+        properties.setProperty("jdbcUrl", "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+
+        // Saves stay in the write-behind cache for the whole test
+        properties.setProperty("wakacraft.writeBehind.flushInterval", "3600000");
+
+        connector = new HikariWakaConnector(properties);
+        connector.connect();
+    }
+
+    @AfterEach
+    void tearDown() {
+        connector.disconnect();
+    }
+
+    @Test
+    void keepsBufferedDisconnectWhenReconnectingBeforeACrash() {
+        UUID uniqueId = UUID.randomUUID();
+        long now = System.currentTimeMillis();
+
+        WakaDatabase wakaDatabase = new SQLWakaDatabase(Collections.singletonList(connector));
+        WakaJournal wakaJournal = open(wakaDatabase);
+
+        long connect = wakaJournal.append(WakaJournalRecord.Type.CONNECT, uniqueId, NAME, now);
+        wakaJournal.confirmOnSuccess(connect, wakaDatabase.loadPlayer(uniqueId, NAME, WakaExecutor.Priority.WRITE)).join();
+
+        long disconnect = wakaJournal.append(WakaJournalRecord.Type.DISCONNECT, uniqueId, NAME, now + 60000);
+        wakaJournal.confirmOnSuccess(disconnect, wakaDatabase.savePlayer(uniqueId, NAME, now + 60000));
+
+        // Answered by the player cache while the disconnect is still buffered
+        long reconnect = wakaJournal.append(WakaJournalRecord.Type.CONNECT, uniqueId, NAME, now + 61000);
+        wakaJournal.confirmOnSuccess(reconnect, wakaDatabase.loadPlayer(uniqueId, NAME, WakaExecutor.Priority.WRITE)).join();
+
+        assertEquals(1, wakaJournal.getUnconfirmed());
+
+        // The proxy crashes, losing the write-behind cache but not the journal
+        wakaJournal.close(1, TimeUnit.SECONDS);
+
+        WakaDatabase restarted = new SQLWakaDatabase(Collections.singletonList(connector));
+        WakaJournal recovered = open(restarted);
+
+        assertEquals(1, recovered.getUnconfirmed());
+
+        recovered.replay();
+
+        assertEquals(0, recovered.getUnconfirmed());
+        assertEquals(now + 60000, restarted.loadPlayer(uniqueId, null).join().getMeasureTime());
+
+        recovered.close(1, TimeUnit.SECONDS);
+        restarted.shutdown(1, TimeUnit.SECONDS);
+    }
+
+    private WakaJournal open(WakaDatabase wakaDatabase) {
+        return new WakaJournal(wakaDatabase, directory, 64, 4, 3600000, 0, 500, Logger.getLogger("Wakacraft"));
+    }
+}